@@ -0,0 +1,97 @@
+package rainfallPrediction;
+
+import java.util.Arrays;
+
+/**
+ * Standard scaler folded into a per-feature multiply-add, with the 13 possible
+ * one-hot state blocks scaled once up front.
+ * Built from scalerMean/scalerScale when a model is loaded; scaling a row then costs
+ * 4 multiply-adds for the numeric features plus one 13-float block copy for the state.
+ */
+public class CompiledFeatureTransformer {
+
+    public static final int NUMERIC_COUNT = 4;
+    public static final int STATE_COUNT = 13;
+    public static final int FEATURE_SIZE = NUMERIC_COUNT + STATE_COUNT;
+
+    // Ordinal for states outside STATE_LIST (one-hot block of all zeros)
+    public static final int UNKNOWN_STATE = -1;
+    // Returned by oneHotOrdinal when the state block is not a clean one-hot
+    public static final int NOT_ONE_HOT = -2;
+
+    private final float[] mul = new float[FEATURE_SIZE];
+    private final float[] add = new float[FEATURE_SIZE];
+    // STATE_COUNT scaled blocks, one per ordinal, followed by the all-zeros (unknown) block
+    private final float[] stateBlocks = new float[(STATE_COUNT + 1) * STATE_COUNT];
+
+    public CompiledFeatureTransformer(float[] mean, float[] scale) {
+        if (mean == null || scale == null || mean.length != FEATURE_SIZE || scale.length != FEATURE_SIZE) {
+            throw new IllegalArgumentException("Scaler mean and scale must both be of length " + FEATURE_SIZE);
+        }
+        // (x - mean) / scale  ==  x * (1 / scale) + (-mean / scale)
+        for (int i = 0; i < FEATURE_SIZE; i++) {
+            mul[i] = (float) (1.0 / scale[i]);
+            add[i] = (float) (-(double) mean[i] / scale[i]);
+        }
+        for (int ordinal = 0; ordinal <= STATE_COUNT; ordinal++) {
+            for (int j = 0; j < STATE_COUNT; j++) {
+                float oneHot = (ordinal == j) ? 1.0f : 0.0f;
+                int i = NUMERIC_COUNT + j;
+                stateBlocks[ordinal * STATE_COUNT + j] = (oneHot - mean[i]) / scale[i];
+            }
+        }
+    }
+
+    /**
+     * Writes the scaled 17-feature vector for one row into out[offset .. offset + FEATURE_SIZE).
+     *
+     * @param stateOrdinal index into STATE_LIST, or UNKNOWN_STATE
+     */
+    public void transform(float height, float minMeanTemp, float maxMeanTemp, float meanRelHum,
+                          int stateOrdinal, float[] out, int offset) {
+        out[offset] = height * mul[0] + add[0];
+        out[offset + 1] = minMeanTemp * mul[1] + add[1];
+        out[offset + 2] = maxMeanTemp * mul[2] + add[2];
+        out[offset + 3] = meanRelHum * mul[3] + add[3];
+        int block = (stateOrdinal >= 0 && stateOrdinal < STATE_COUNT) ? stateOrdinal : STATE_COUNT;
+        System.arraycopy(stateBlocks, block * STATE_COUNT, out, offset + NUMERIC_COUNT, STATE_COUNT);
+    }
+
+    /**
+     * Scales a raw 17-feature vector at raw[rawOffset ..] into out[outOffset ..].
+     * Clean one-hot state blocks use the precomputed blocks; anything else is scaled slot by slot.
+     */
+    public void transform(float[] raw, int rawOffset, float[] out, int outOffset) {
+        int ordinal = oneHotOrdinal(raw, rawOffset);
+        if (ordinal == NOT_ONE_HOT) {
+            for (int i = 0; i < FEATURE_SIZE; i++) {
+                out[outOffset + i] = raw[rawOffset + i] * mul[i] + add[i];
+            }
+        } else {
+            transform(raw[rawOffset], raw[rawOffset + 1], raw[rawOffset + 2], raw[rawOffset + 3],
+                      ordinal, out, outOffset);
+        }
+    }
+
+    /**
+     * Returns the state ordinal encoded in the one-hot block of a raw feature vector,
+     * UNKNOWN_STATE if the block is all zeros, or NOT_ONE_HOT otherwise.
+     */
+    public static int oneHotOrdinal(float[] raw, int offset) {
+        int ordinal = UNKNOWN_STATE;
+        for (int j = 0; j < STATE_COUNT; j++) {
+            float v = raw[offset + NUMERIC_COUNT + j];
+            if (v == 1.0f && ordinal == UNKNOWN_STATE) {
+                ordinal = j;
+            } else if (v != 0.0f) {
+                return NOT_ONE_HOT;
+            }
+        }
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledFeatureTransformer{mul=" + Arrays.toString(mul) + ", add=" + Arrays.toString(add) + "}";
+    }
+}
@@ -0,0 +1,292 @@
+package rainfallPrediction;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens CSV files that may be gzip-compressed, chosen by a ".gz" name suffix.
+ * For gzipped files the (de)compression runs on its own daemon thread and hands 256 KiB blocks
+ * through a small bounded queue, so inflating overlaps with parsing and deflating overlaps with
+ * inference and formatting instead of adding to them. Plain files are opened directly.
+ */
+public final class CompressedFiles {
+
+    private static final int BLOCK_BYTES = 256 << 10;
+    private static final int QUEUED_BLOCKS = 4;
+    private static final int GZIP_BUFFER_BYTES = 64 << 10;
+
+    private CompressedFiles() {
+    }
+
+    public static boolean isGzip(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Stream of the file's (decompressed) bytes.
+     */
+    public static InputStream newInputStream(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (!isGzip(file)) return in;
+        try {
+            return new PipelinedInputStream(new GZIPInputStream(in, GZIP_BUFFER_BYTES), "gunzip-" + file.getName());
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * UTF-8 reader over the file's (decompressed) text.
+     */
+    public static BufferedReader newReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(newInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Stream that writes the file, compressing it if the name ends with ".gz". The gzip trailer is
+     * written, and any background error reported, by close().
+     */
+    public static OutputStream newOutputStream(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (!isGzip(file)) return out;
+        try {
+            return new PipelinedOutputStream(new GZIPOutputStream(out, GZIP_BUFFER_BYTES), "gzip-" + file.getName());
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private static Thread startDaemon(Runnable task, String name) {
+        Thread t = new Thread(task, "rainfall-" + name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static final class Block {
+        static final Block END = new Block(new byte[0], 0);
+
+        final byte[] data;
+        final int length;
+
+        Block(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Reads the source on a background thread, a block ahead of the consumer.
+     */
+    private static final class PipelinedInputStream extends InputStream {
+        private final InputStream source;
+        private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private final Thread reader;
+        private volatile IOException error;
+        private Block current;
+        private int position;
+        private boolean closed;
+
+        PipelinedInputStream(InputStream source, String name) {
+            this.source = source;
+            this.reader = startDaemon(this::fill, name);
+        }
+
+        private void fill() {
+            try {
+                while (true) {
+                    byte[] data = new byte[BLOCK_BYTES];
+                    int length = 0;
+                    int n;
+                    while (length < data.length && (n = source.read(data, length, data.length - length)) > 0) {
+                        length += n;
+                    }
+                    if (length > 0) queue.put(new Block(data, length));
+                    if (length < data.length) break;
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                // close() while the consumer stopped reading
+                return;
+            }
+            try {
+                queue.put(Block.END);
+            } catch (InterruptedException ignored) {
+                // Closed while handing over the end marker; nobody is reading anymore
+            }
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (current == Block.END) return false;
+            if (current != null && position < current.length) return true;
+            try {
+                current = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+            }
+            position = 0;
+            if (current == Block.END) {
+                if (error != null) throw new IOException(error.getMessage(), error);
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            return nextBlock() ? current.data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            if (len == 0) return 0;
+            if (!nextBlock()) return -1;
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current.data, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            reader.interrupt();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            source.close();
+        }
+    }
+
+    /**
+     * Collects writes into blocks and writes them to the sink on a background thread.
+     */
+    private static final class PipelinedOutputStream extends OutputStream {
+        private final OutputStream sink;
+        private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private final Thread writer;
+        private volatile IOException error;
+        private byte[] current = new byte[BLOCK_BYTES];
+        private int length;
+        private boolean closed;
+
+        PipelinedOutputStream(OutputStream sink, String name) {
+            this.sink = sink;
+            this.writer = startDaemon(this::drain, name);
+        }
+
+        private void drain() {
+            try {
+                Block block;
+                while ((block = queue.take()) != Block.END) {
+                    // After a failure keep taking blocks so the producer never blocks on a full queue
+                    if (error != null) continue;
+                    try {
+                        sink.write(block.data, 0, block.length);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // close() gave up waiting; just release the file
+            } finally {
+                try {
+                    sink.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            }
+        }
+
+        private void checkError() throws IOException {
+            IOException e = error;
+            if (e != null) throw new IOException(e.getMessage(), e);
+        }
+
+        private void handOff() throws IOException {
+            if (length == 0) return;
+            put(new Block(current, length));
+            current = new byte[BLOCK_BYTES];
+            length = 0;
+        }
+
+        private void put(Block block) throws IOException {
+            try {
+                queue.put(block);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while queueing data for compression");
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            if (length == current.length) handOff();
+            current[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            checkError();
+            while (len > 0) {
+                if (length == current.length) handOff();
+                int n = Math.min(len, current.length - length);
+                System.arraycopy(b, off, current, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Hands buffered bytes to the background thread; they reach the file asynchronously.
+         */
+        @Override
+        public void flush() throws IOException {
+            checkError();
+            handOff();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                handOff();
+                put(Block.END);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while finishing compression");
+            } finally {
+                // If we gave up early the writer stops here, still closing the sink
+                if (writer.isAlive()) writer.interrupt();
+            }
+            checkError();
+        }
+    }
+}
@@ -5,14 +5,27 @@ import javafx.scene.control.Alert;
 import rainfallPrediction.RainfallPredictionApp.RainfallData;
 
 import java.io.File;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * ${user}blackcontractor@farid
  */
 public class CsvDataLoader {
 
+    // Parser threads for files on disk, e.g. -Drainfall.parse.threads=1 for a single-threaded parse
+    private int parseThreads = Integer.getInteger("rainfall.parse.threads", Runtime.getRuntime().availableProcessors());
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    public void setParseThreads(int parseThreads) {
+        if (parseThreads < 1) throw new IllegalArgumentException("Parse threads must be at least 1, got " + parseThreads);
+        this.parseThreads = parseThreads;
+    }
+
     public static class CsvResult {
         public List<String> columns = new ArrayList<>();
         public List<RainfallData> rows = new ArrayList<>();
@@ -21,125 +34,89 @@ public class CsvDataLoader {
     /**
      * Parses a CSV file robustly, extracting only the necessary 17 features for the ONNX model!
      * If the CSV has a "Prediction" column, also sets the prediction string for each row.
+     * The file is read incrementally (see parseCsvStreaming); only the resulting rows are kept.
      */
     public CsvResult parseCsv(File file) {
         CsvResult result = new CsvResult();
-        int skippedRows = 0;
-        try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.isEmpty()) return result;
-
-            // Split header and trim each column name
-            result.columns = new ArrayList<>();
-            for (String h : lines.get(0).split(",")) {
-                result.columns.add(h.trim());
+        CsvStreamParser.Result stats = parseCsvStreaming(file, CsvStreamParser.DEFAULT_CHUNK_ROWS, chunk -> {
+            int n = RowChunk.FEATURE_SIZE;
+            for (int r = 0; r < chunk.size; r++) {
+                float[] features = Arrays.copyOfRange(chunk.features, r * n, (r + 1) * n);
+                Float target = chunk.hasTarget ? chunk.targets[r] : null;
+                RainfallData row = new RainfallData(features, chunk.states[r], target);
+                String prediction = chunk.predictions[r];
+                if (prediction != null && !prediction.isEmpty())
+                    row.setPrediction(prediction);
+                result.rows.add(row);
             }
-            List<String> headers = result.columns;
-
-            // Find column indices, including optional Prediction
-            int heightIdx = -1, minMeanTempIdx = -1, maxMeanTempIdx = -1, meanRelHumIdx = -1, stateIdx = -1, targetIdx = -1, predIdx = -1;
-            for (int i = 0; i < headers.size(); i++) {
-                String col = headers.get(i);
-                if (col.equalsIgnoreCase("height")) heightIdx = i;
-                else if (col.equalsIgnoreCase("minMeanTemp")) minMeanTempIdx = i;
-                else if (col.equalsIgnoreCase("maxMeanTemp")) maxMeanTempIdx = i;
-                else if (col.equalsIgnoreCase("meanRelHum")) meanRelHumIdx = i;
-                else if (col.equalsIgnoreCase("state")) stateIdx = i;
-                else if (col.equalsIgnoreCase("rainfall") || col.equalsIgnoreCase("actual")) targetIdx = i;
-                else if (col.equalsIgnoreCase("prediction")) predIdx = i;
-            }
-            if (heightIdx == -1 || minMeanTempIdx == -1 || maxMeanTempIdx == -1 ||
-                meanRelHumIdx == -1 || stateIdx == -1) {
-                alertLater("Error", "CSV missing one or more required columns (height, minMeanTemp, maxMeanTemp, meanRelHum, state). Headers: " + headers);
-                return result;
-            }
-
-            int rowCount = 1;
-            for (String line : lines.subList(1, lines.size())) {
-                rowCount++;
-                if (line.trim().isEmpty()) continue;
-                String[] values = line.split(",", -1);
-
-                if (values.length < headers.size()) {
-                    System.out.println("DEBUG: Skipping row " + rowCount + " due to column count mismatch. Expected " + headers.size() + ", got " + values.length);
-                    skippedRows++;
-                    continue;
-                }
-                List<Float> features = new ArrayList<>();
-                boolean validRow = true;
-                try {
-                    features.add(parseSafeFloat(values[heightIdx]));
-                    features.add(parseSafeFloat(values[minMeanTempIdx]));
-                    features.add(parseSafeFloat(values[maxMeanTempIdx]));
-                    features.add(parseSafeFloat(values[meanRelHumIdx]));
-                    String stateVal = values[stateIdx].trim();
-
-                    // Extra diagnostic: print first 5 state values to catch typos
-                    if (rowCount <= 6) System.out.println("DEBUG: Row " + rowCount + " stateVal='" + stateVal + "'");
-
-                    // One-hot state (must match ONNX order)
-                    boolean foundState = false;
-                    for (String s : RainfallPredictionApp.STATE_LIST) {
-                        if (stateVal.equals(s)) foundState = true;
-                        features.add(stateVal.equals(s) ? 1.0f : 0.0f);
-                    }
-                    if (!foundState) {
-                        System.out.println(
-                            "DEBUG: Row " + rowCount + " WARNING: state '" + stateVal + "' not in STATE_LIST, will be encoded as all zeros."
-                        );
-                    }
-                    if (features.size() != 17) {
-                        System.out.println("DEBUG: Skipping row. Feature vector size is not 17: " + features.size());
-                        validRow = false;
-                    }
-                    if (features.stream().anyMatch(f -> !Float.isFinite(f))) {
-                        System.out.println("DEBUG: Skipping row. Non-finite value in features: " + features);
-                        validRow = false;
-                    }
-                    Float target = (targetIdx != -1) ? parseSafeFloat(values[targetIdx]) : null;
-
-                    // NEW: Get prediction string if present
-                    String prediction = (predIdx != -1 && predIdx < values.length) ? values[predIdx] : null;
-
-                    if (validRow) {
-                        RainfallData row = new RainfallData(features, stateVal, target);
-                        if (prediction != null && !prediction.isEmpty())
-                            row.setPrediction(prediction);
-                        result.rows.add(row);
+        });
+        if (stats != null) result.columns = stats.columns;
+        return result;
+    }
 
-                        if (rowCount <= 6) System.out.println("DEBUG: Added row with features.size() = " + features.size() + " - " + features + ", prediction=" + prediction);
-                    } else {
-                        skippedRows++;
-                    }
-                } catch (Exception ex) {
-                    System.out.println("DEBUG: Exception on row " + rowCount + ": " + ex.getMessage());
-                    skippedRows++;
+    /**
+     * Parses a CSV file straight into a columnar RainfallDataset, without creating a
+     * RainfallData object per row.
+     * A valid binary sidecar (see DatasetSidecar) is loaded instead of the text when present;
+     * after a text parse the sidecar is (re)written for next time.
+     *
+     * @return the dataset, or null if the file could not be read (the error has been reported)
+     */
+    public RainfallDataset loadDataset(File file) {
+        DatasetSidecar.Fingerprint source = null;
+        if (DatasetSidecar.isEnabled()) {
+            long start = System.nanoTime();
+            DatasetSidecar.Loaded cached = DatasetSidecar.read(file);
+            if (cached != null) {
+                PipelineMetrics.recordSince(PipelineMetrics.Stage.CSV_PARSE, start, cached.dataset.size());
+                if (cached.skippedRows > 0) {
+                    alertLater("Info", "CsvDataLoader: Skipped " + cached.skippedRows + " invalid row(s) with non-numeric or missing values.");
                 }
+                return cached.dataset;
+            }
+            // Taken before parsing, so a CSV modified mid-parse is not cached under its new fingerprint
+            try {
+                source = DatasetSidecar.Fingerprint.of(file);
+            } catch (IOException e) {
+                DebugLog.println("CsvDataLoader: cannot fingerprint " + file + ": " + e);
             }
-        } catch (Exception e) {
-            alertLater("Error", "File read error: " + e.getMessage());
         }
-        if (skippedRows > 0) {
-            alertLater("Info", "CsvDataLoader: Skipped " + skippedRows + " invalid row(s) with non-numeric or missing values.");
+        RainfallDataset dataset = new RainfallDataset();
+        CsvStreamParser.Result stats = parseCsvStreaming(file, CsvStreamParser.DEFAULT_CHUNK_ROWS, dataset::addChunk);
+        if (stats == null) return null;
+        dataset.trimToSize();
+        if (source != null) {
+            try {
+                DatasetSidecar.write(file, source, dataset, stats.skippedRows);
+            } catch (IOException | RuntimeException e) {
+                // Read-only directory etc.: the dataset is still fine, it just gets parsed again next time
+                System.err.println("Could not write dataset cache for " + file + ": " + e.getMessage());
+            }
         }
-        return result;
+        return dataset;
     }
 
     /**
-     * Parses floats robustly: handles "-", "N/A", commas, empty, and units.
+     * Streams a CSV file to the consumer in chunks of at most chunkRows rows, in file order.
+     * With more than one parse thread, byte ranges of the file are tokenized concurrently and
+     * ranges that finish early are buffered until their turn; with one thread the file is never
+     * held in memory. Consumers must copy any chunk data they keep.
+     * Errors and the skipped-row count are reported to the user like parseCsv.
+     *
+     * @return header and row counts, or null if the file could not be read
      */
-    private static float parseSafeFloat(String val) {
-        if (val == null) return Float.NaN;
-        val = val.trim().replace(",", "")
-                .replace("(", "")
-                .replace(")", "")
-                .replace("m", "");
-        if (val.isEmpty() || val.equals("-") || val.equalsIgnoreCase("N/A")) return Float.NaN;
+    public CsvStreamParser.Result parseCsvStreaming(File file, int chunkRows, Consumer<RowChunk> consumer) {
+        CsvStreamParser.Result stats;
         try {
-            return Float.parseFloat(val);
-        } catch (NumberFormatException ex) {
-            return Float.NaN;
+            stats = CsvStreamParser.parse(file, chunkRows, parseThreads, consumer);
+        } catch (Exception e) {
+            alertLater("Error", "File read error: " + e.getMessage());
+            return null;
+        }
+        if (stats.skippedRows > 0) {
+            alertLater("Info", "CsvDataLoader: Skipped " + stats.skippedRows + " invalid row(s) with non-numeric or missing values.");
         }
+        return stats;
     }
 
     private void alertLater(String title, String msg) {
@@ -1,6 +1,6 @@
 package rainfallPrediction;
 
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -8,26 +8,53 @@ import java.util.List;
  * ${user}blackcontractor@farid
  */
 public class CsvExportUtil {
+
+    /** Decimals written for features and actual values. */
+    public static final int VALUE_DECIMALS = 4;
+    /** Decimals written for predictions, matching the table display. */
+    public static final int PREDICTION_DECIMALS = 2;
+
     public static void saveAsCsv(
             List<RainfallPredictionApp.RainfallData> data,
             List<String> featureHeaders,
             String filename
     ) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            // Write header without trailing comma
-            for (int i = 0; i < featureHeaders.size(); i++) {
-                writer.append(featureHeaders.get(i));
-                if (i != featureHeaders.size() - 1) writer.append(",");
-            }
-            writer.append("\n");
+        long start = System.nanoTime();
+        try (FastCsvWriter writer = new FastCsvWriter(new File(filename))) {
+            writer.header(featureHeaders);
             for (RainfallPredictionApp.RainfallData row : data) {
-                for (int i = 0; i < row.getFeatures().size(); i++) {
-                    writer.append(String.valueOf(row.getValue(i))).append(",");
-                }
+                float[] features = row.getFeatureArray();
+                writer.cells(features, 0, features.length, VALUE_DECIMALS);
                 // Write actual and prediction columns
-                writer.append(row.rainfallTarget == null ? "" : row.rainfallTarget.toString()).append(",");
-                writer.append(row.getPrediction()).append("\n");
+                if (row.rainfallTarget == null) writer.emptyCell();
+                else writer.cell(row.rainfallTarget, VALUE_DECIMALS);
+                writer.cell(row.getPredictionValue(), PREDICTION_DECIMALS).endRow();
+            }
+        }
+        PipelineMetrics.recordSince(PipelineMetrics.Stage.EXPORT, start, data.size());
+    }
+
+    /**
+     * Writes the dataset with the 17 features, the actual value and the prediction per row.
+     * Rows without an actual value or a prediction get an empty cell.
+     */
+    public static void saveAsCsv(
+            RainfallDataset dataset,
+            List<String> featureHeaders,
+            String filename
+    ) throws IOException {
+        long start = System.nanoTime();
+        try (FastCsvWriter writer = new FastCsvWriter(new File(filename))) {
+            writer.header(featureHeaders);
+            for (int row = 0; row < dataset.size(); row++) {
+                for (int i = 0; i < RainfallDataset.FEATURE_SIZE; i++) {
+                    writer.cell(dataset.getFeature(row, i), VALUE_DECIMALS);
+                }
+                writer.cell(dataset.getTarget(row), VALUE_DECIMALS)
+                        .cell(dataset.getPrediction(row), PREDICTION_DECIMALS)
+                        .endRow();
             }
         }
+        PipelineMetrics.recordSince(PipelineMetrics.Stage.EXPORT, start, dataset.size());
     }
 }
\ No newline at end of file
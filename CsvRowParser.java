@@ -0,0 +1,114 @@
+package rainfallPrediction;
+
+import java.util.List;
+
+/**
+ * Column lookup and tolerant number parsing for rainfall CSV files.
+ * Has no JavaFX dependencies so it can be used from the headless batch runner.
+ */
+public class CsvRowParser {
+
+    /**
+     * Indices of the known columns in a CSV header; -1 when a column is absent.
+     */
+    public static class Columns {
+        public final int count;
+        public int height = -1;
+        public int minMeanTemp = -1;
+        public int maxMeanTemp = -1;
+        public int meanRelHum = -1;
+        public int state = -1;
+        public int target = -1;
+        public int prediction = -1;
+
+        Columns(int count) {
+            this.count = count;
+        }
+
+        public boolean hasRequired() {
+            return height != -1 && minMeanTemp != -1 && maxMeanTemp != -1 && meanRelHum != -1 && state != -1;
+        }
+    }
+
+    /**
+     * Finds the feature columns (case-insensitive), the target ("rainfall" or "actual")
+     * and an optional "prediction" column.
+     */
+    public static Columns resolve(List<String> headers) {
+        Columns c = new Columns(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            String col = headers.get(i).trim();
+            if (col.equalsIgnoreCase("height")) c.height = i;
+            else if (col.equalsIgnoreCase("minMeanTemp")) c.minMeanTemp = i;
+            else if (col.equalsIgnoreCase("maxMeanTemp")) c.maxMeanTemp = i;
+            else if (col.equalsIgnoreCase("meanRelHum")) c.meanRelHum = i;
+            else if (col.equalsIgnoreCase("state")) c.state = i;
+            else if (col.equalsIgnoreCase("rainfall") || col.equalsIgnoreCase("actual")) c.target = i;
+            else if (col.equalsIgnoreCase("prediction")) c.prediction = i;
+        }
+        return c;
+    }
+
+    /**
+     * Writes the 17-feature vector for one split CSV line into dst[offset ..].
+     *
+     * @return false if any numeric feature is missing or not a finite number
+     */
+    public static boolean parseFeatures(String[] values, Columns c, float[] dst, int offset) {
+        boolean finite = parseNumericFeatures(values, c, dst, offset);
+        FeatureVectorUtil.writeStateFeatures(dst, offset, FeatureVectorUtil.stateOrdinal(values[c.state].trim()));
+        return finite;
+    }
+
+    /**
+     * Writes only the numeric features of one split CSV line into dst[offset ..], leaving the
+     * one-hot state columns to the caller.
+     *
+     * @return false if any numeric feature is missing or not a finite number
+     */
+    public static boolean parseNumericFeatures(String[] values, Columns c, float[] dst, int offset) {
+        FeatureVectorUtil.writeNumericFeatures(dst, offset,
+                parseSafeFloat(values[c.height]),
+                parseSafeFloat(values[c.minMeanTemp]),
+                parseSafeFloat(values[c.maxMeanTemp]),
+                parseSafeFloat(values[c.meanRelHum]));
+        for (int i = 0; i < 4; i++) {
+            if (!Float.isFinite(dst[offset + i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses floats robustly: handles "-", "N/A", commas, empty, and units.
+     */
+    public static float parseSafeFloat(String val) {
+        if (val == null) return Float.NaN;
+        val = val.trim().replace(",", "")
+                .replace("(", "")
+                .replace(")", "")
+                .replace("m", "");
+        if (val.isEmpty() || val.equals("-") || val.equalsIgnoreCase("N/A")) return Float.NaN;
+        try {
+            return Float.parseFloat(val);
+        } catch (NumberFormatException ex) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * Double-precision counterpart of parseSafeFloat, with the same tolerance.
+     */
+    public static double parseSafeDouble(String val) {
+        if (val == null) return Double.NaN;
+        val = val.trim().replace(",", "")
+                .replace("(", "")
+                .replace(")", "")
+                .replace("m", "");
+        if (val.isEmpty() || val.equals("-") || val.equalsIgnoreCase("N/A")) return Double.NaN;
+        try {
+            return Double.parseDouble(val);
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+}
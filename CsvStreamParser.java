@@ -0,0 +1,159 @@
+package rainfallPrediction;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incremental CSV parser: reads the input line by line and hands rows to a consumer in
+ * fixed-size RowChunks, so peak memory depends on the chunk size rather than the file size
+ * and callers can run inference while the rest of the file is still being read.
+ * Has no JavaFX dependencies.
+ */
+public class CsvStreamParser {
+
+    public static final int DEFAULT_CHUNK_ROWS = 8192;
+
+    /**
+     * Header and row counts of a finished parse.
+     */
+    public static class Result {
+        public List<String> columns = new ArrayList<>();
+        public long rows;
+        public long skippedRows;
+    }
+
+    /**
+     * Parses a file on disk with the memory-mapped byte tokenizer (MappedCsvTokenizer).
+     * Gzipped files (".gz") are read as text instead, decompressed on a background thread
+     * (see CompressedFiles).
+     */
+    public static Result parse(File file, int chunkRows, Consumer<RowChunk> consumer) throws IOException {
+        if (CompressedFiles.isGzip(file)) {
+            try (Reader reader = CompressedFiles.newReader(file)) {
+                return parse(reader, chunkRows, consumer);
+            }
+        }
+        return MappedCsvTokenizer.parse(file, chunkRows, consumer);
+    }
+
+    /**
+     * Parses a file on disk on up to parallelism threads (see MappedCsvTokenizer.parseParallel).
+     * The consumer still sees rows in file order, on the calling thread.
+     * Gzipped files can't be split and are always parsed sequentially.
+     */
+    public static Result parse(File file, int chunkRows, int parallelism, Consumer<RowChunk> consumer) throws IOException {
+        if (parallelism <= 1 || CompressedFiles.isGzip(file)) return parse(file, chunkRows, consumer);
+        return MappedCsvTokenizer.parseParallel(file, chunkRows, parallelism, consumer);
+    }
+
+    /**
+     * Parses CSV text, calling consumer with each full chunk and once more with the final partial chunk.
+     *
+     * @throws IOException on read errors, or if required columns are missing from the header
+     */
+    public static Result parse(Reader input, int chunkRows, Consumer<RowChunk> consumer) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input, 1 << 16);
+        Result result = new Result();
+        String header = reader.readLine();
+        if (header == null) return result;
+
+        // Split header and trim each column name
+        for (String h : header.split(",")) {
+            result.columns.add(h.trim());
+        }
+        CsvRowParser.Columns cols = CsvRowParser.resolve(result.columns);
+        if (!cols.hasRequired()) {
+            throw new IOException("CSV missing one or more required columns (height, minMeanTemp, maxMeanTemp, meanRelHum, state). Headers: " + result.columns);
+        }
+
+        RowChunk chunk = new RowChunk(chunkRows);
+        chunk.hasTarget = cols.target != -1;
+        long chunkStart = System.nanoTime();
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) continue;
+            if (parseLine(line, lineNumber, cols, chunk)) {
+                result.rows++;
+                if (chunk.isFull()) {
+                    finishChunk(chunk, chunkStart);
+                    consumer.accept(chunk);
+                    chunk.clear();
+                    chunkStart = System.nanoTime();
+                }
+            } else {
+                result.skippedRows++;
+            }
+        }
+        if (chunk.size > 0) {
+            finishChunk(chunk, chunkStart);
+            consumer.accept(chunk);
+            chunk.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the chunk's one-hot state columns and records its parse and encode time once per
+     * chunk, split the same way as MappedCsvTokenizer: reading, splitting and float parsing count
+     * as CSV_PARSE, the one-hot pass as FEATURE_ENCODE.
+     */
+    private static void finishChunk(RowChunk chunk, long chunkStart) {
+        long encodeStart = System.nanoTime();
+        chunk.encodeStates();
+        PipelineMetrics.record(PipelineMetrics.Stage.CSV_PARSE, encodeStart - chunkStart, chunk.size);
+        PipelineMetrics.recordSince(PipelineMetrics.Stage.FEATURE_ENCODE, encodeStart, chunk.size);
+    }
+
+    /**
+     * Appends one line to the chunk.
+     *
+     * @return false if the row was skipped
+     */
+    private static boolean parseLine(String line, int lineNumber, CsvRowParser.Columns cols, RowChunk chunk) {
+        String[] values = line.split(",", -1);
+        if (values.length < cols.count) {
+            if (DebugLog.isEnabled()) DebugLog.println("DEBUG: Skipping row " + lineNumber + " due to column count mismatch. Expected " + cols.count + ", got " + values.length);
+            return false;
+        }
+        try {
+            int r = chunk.size;
+            int off = r * RowChunk.FEATURE_SIZE;
+            String stateVal = values[cols.state].trim();
+
+            // Extra diagnostic: print first 5 state values to catch typos
+            if (lineNumber <= 6 && DebugLog.isEnabled()) DebugLog.println("DEBUG: Row " + lineNumber + " stateVal='" + stateVal + "'");
+
+            // Numeric features now; the one-hot state follows per chunk in finishChunk (ONNX order)
+            boolean finite = CsvRowParser.parseNumericFeatures(values, cols, chunk.features, off);
+            int stateOrdinal = FeatureVectorUtil.stateOrdinal(stateVal);
+            if (stateOrdinal < 0 && DebugLog.isEnabled()) {
+                DebugLog.println("DEBUG: Row " + lineNumber + " WARNING: state '" + stateVal + "' not in STATE_LIST, will be encoded as all zeros.");
+            }
+            if (!finite) {
+                if (DebugLog.isEnabled()) DebugLog.println("DEBUG: Skipping row " + lineNumber + ". Non-finite value in features: "
+                        + Arrays.toString(Arrays.copyOfRange(chunk.features, off, off + 4)));
+                return false;
+            }
+
+            chunk.states[r] = stateVal;
+            chunk.stateOrdinals[r] = stateOrdinal;
+            chunk.targets[r] = cols.target != -1 ? CsvRowParser.parseSafeFloat(values[cols.target]) : Float.NaN;
+            chunk.predictions[r] = (cols.prediction != -1 && cols.prediction < values.length) ? values[cols.prediction] : null;
+            chunk.size++;
+            return true;
+        } catch (Exception ex) {
+            if (DebugLog.isEnabled()) DebugLog.println("DEBUG: Exception on row " + lineNumber + ": " + ex.getMessage());
+            return false;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package rainfallPrediction;
 
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 
@@ -11,22 +10,19 @@ import java.util.List;
  */
 public class CsvUtils {
     public static void saveTableToCsv(File file, List<String> headers, List<RainfallPredictionApp.RainfallData> data) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+        long start = System.nanoTime();
+        try (FastCsvWriter writer = new FastCsvWriter(file)) {
             // Write header
-            for (int i = 0; i < headers.size(); i++) {
-                writer.append(headers.get(i));
-                writer.append(',');
-            }
-            writer.append("Prediction\n");
+            for (String header : headers) writer.cell(header);
+            writer.cell("Prediction").endRow();
             // Write data
             for (RainfallPredictionApp.RainfallData row : data) {
                 for (int i = 0; i < headers.size(); i++) {
-                    writer.append(String.valueOf(row.getValue(i)));
-                    writer.append(',');
+                    writer.cell(row.getValue(i), CsvExportUtil.VALUE_DECIMALS);
                 }
-                writer.append(row.getPrediction());
-                writer.append('\n');
+                writer.cell(row.getPredictionValue(), CsvExportUtil.PREDICTION_DECIMALS).endRow();
             }
         }
+        PipelineMetrics.recordSince(PipelineMetrics.Stage.EXPORT, start, data.size());
     }
 }
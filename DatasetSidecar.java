@@ -0,0 +1,263 @@
+package rainfallPrediction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary cache of a parsed CSV, stored next to it as "<name>.csv.rfds", so reloading the same
+ * file skips text parsing.
+ *
+ * Layout (little-endian): a fixed header (magic, version, source size, source mtime, source hash,
+ * row count, flags, skipped rows, unknown-state count), then the columns back to back: height,
+ * minMeanTemp, maxMeanTemp, meanRelHum, target and prediction as float[rows], the state ordinals
+ * as byte[rows], and finally (row, UTF-8 name) pairs for states outside STATE_LIST.
+ * On load each column is memory-mapped and bulk-copied into the dataset arrays.
+ *
+ * The sidecar is used only if the CSV's size, mtime and sampled hash (CRC32 of the first and
+ * last MiB) still match; otherwise it is ignored and rewritten by the next parse.
+ * Disable with -Drainfall.sidecar=false.
+ */
+public class DatasetSidecar {
+
+    public static final String SUFFIX = ".rfds";
+
+    private static final int MAGIC = 0x53444652; // "RFDS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 8 + 4;
+    private static final int FLAG_HAS_TARGET = 1;
+    private static final int HASH_SAMPLE_BYTES = 1 << 20;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Dataset read from the sidecar, with the skipped-row count of the original parse.
+     */
+    public static class Loaded {
+        public final RainfallDataset dataset;
+        public final long skippedRows;
+
+        Loaded(RainfallDataset dataset, long skippedRows) {
+            this.dataset = dataset;
+            this.skippedRows = skippedRows;
+        }
+    }
+
+    /**
+     * Size, mtime and sampled hash of a CSV, as recorded in the sidecar header.
+     */
+    public static final class Fingerprint {
+        final long size;
+        final long mtime;
+        final long hash;
+
+        Fingerprint(long size, long mtime, long hash) {
+            this.size = size;
+            this.mtime = mtime;
+            this.hash = hash;
+        }
+
+        /**
+         * Fingerprint of the file as it is now.
+         */
+        public static Fingerprint of(File csv) throws IOException {
+            long size = csv.length();
+            long mtime = csv.lastModified();
+            return new Fingerprint(size, mtime, sourceHash(csv));
+        }
+
+        /**
+         * Whether csv still has this size, mtime and hash. The hash is only computed if the size
+         * and mtime match.
+         */
+        public boolean matches(File csv) throws IOException {
+            return size == csv.length() && mtime == csv.lastModified() && hash == sourceHash(csv);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("rainfall.sidecar", "true"));
+    }
+
+    public static File sidecarFor(File csv) {
+        return new File(csv.getPath() + SUFFIX);
+    }
+
+    /**
+     * Loads the sidecar of csv if it exists and still matches the CSV.
+     *
+     * @return the cached dataset, or null if there is no usable sidecar
+     */
+    public static Loaded read(File csv) {
+        File sidecar = sidecarFor(csv);
+        if (!sidecar.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(sidecar.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) return null;
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            Fingerprint recorded = new Fingerprint(header.getLong(), header.getLong(), header.getLong());
+            if (!recorded.matches(csv)) {
+                DebugLog.println("DatasetSidecar: " + sidecar + " is stale, re-parsing " + csv);
+                return null;
+            }
+            int rows = header.getInt();
+            int flags = header.getInt();
+            long skippedRows = header.getLong();
+            int unknownCount = header.getInt();
+            if (rows < 0 || unknownCount < 0 || channel.size() < HEADER_BYTES + rows * 25L) return null;
+
+            long position = HEADER_BYTES;
+            float[] height = readFloats(channel, position, rows);
+            position += rows * 4L;
+            float[] minMeanTemp = readFloats(channel, position, rows);
+            position += rows * 4L;
+            float[] maxMeanTemp = readFloats(channel, position, rows);
+            position += rows * 4L;
+            float[] meanRelHum = readFloats(channel, position, rows);
+            position += rows * 4L;
+            float[] target = readFloats(channel, position, rows);
+            position += rows * 4L;
+            float[] prediction = readFloats(channel, position, rows);
+            position += rows * 4L;
+            byte[] state = new byte[rows];
+            if (rows > 0) channel.map(FileChannel.MapMode.READ_ONLY, position, rows).get(state);
+            position += rows;
+
+            Map<Integer, String> unknownStates = new HashMap<>();
+            if (unknownCount > 0) {
+                ByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < unknownCount; i++) {
+                    int row = tail.getInt();
+                    byte[] name = new byte[tail.getShort() & 0xFFFF];
+                    tail.get(name);
+                    unknownStates.put(row, new String(name, StandardCharsets.UTF_8));
+                }
+            }
+            RainfallDataset dataset = new RainfallDataset(rows, height, minMeanTemp, maxMeanTemp, meanRelHum,
+                    state, target, prediction, (flags & FLAG_HAS_TARGET) != 0, unknownStates);
+            return new Loaded(dataset, skippedRows);
+        } catch (IOException | RuntimeException e) {
+            // A truncated or unreadable sidecar just means parsing the CSV again
+            DebugLog.println("DatasetSidecar: ignoring " + sidecar + ": " + e);
+            return null;
+        }
+    }
+
+    private static float[] readFloats(FileChannel channel, long position, int count) throws IOException {
+        float[] values = new float[count];
+        if (count > 0) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L);
+            mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the sidecar for csv, recording source, the fingerprint taken before the dataset was
+     * parsed. If the CSV no longer matches it (it was modified during the parse), nothing is
+     * written, since the dataset may mix old and new contents. The file is written under a
+     * temporary name and moved into place, so a concurrent reader never sees a partial sidecar.
+     *
+     * @return false if the CSV changed and the sidecar was not written
+     */
+    public static boolean write(File csv, Fingerprint source, RainfallDataset dataset, long skippedRows) throws IOException {
+        if (!source.matches(csv)) {
+            DebugLog.println("DatasetSidecar: " + csv + " changed while it was parsed, not caching it");
+            return false;
+        }
+        File sidecar = sidecarFor(csv);
+        Path tmp = Files.createTempFile(sidecar.getAbsoluteFile().getParentFile().toPath(), sidecar.getName(), ".tmp");
+        try {
+            int rows = dataset.size();
+            Map<Integer, String> unknownStates = dataset.unknownStates();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION)
+                        .putLong(source.size).putLong(source.mtime).putLong(source.hash)
+                        .putInt(rows).putInt(dataset.hasTarget() ? FLAG_HAS_TARGET : 0)
+                        .putLong(skippedRows).putInt(unknownStates.size());
+                writeFloats(channel, buffer, dataset.heightColumn(), rows);
+                writeFloats(channel, buffer, dataset.minMeanTempColumn(), rows);
+                writeFloats(channel, buffer, dataset.maxMeanTempColumn(), rows);
+                writeFloats(channel, buffer, dataset.meanRelHumColumn(), rows);
+                writeFloats(channel, buffer, dataset.targetColumn(), rows);
+                writeFloats(channel, buffer, dataset.predictionColumn(), rows);
+                byte[] state = dataset.stateColumn();
+                for (int i = 0; i < rows; ) {
+                    if (!buffer.hasRemaining()) flush(channel, buffer);
+                    int n = Math.min(buffer.remaining(), rows - i);
+                    buffer.put(state, i, n);
+                    i += n;
+                }
+                for (Map.Entry<Integer, String> e : unknownStates.entrySet()) {
+                    byte[] name = e.getValue().getBytes(StandardCharsets.UTF_8);
+                    int length = Math.min(name.length, 0xFFFF);
+                    if (buffer.remaining() < 6 + length) flush(channel, buffer);
+                    buffer.putInt(e.getKey()).putShort((short) length).put(name, 0, length);
+                }
+                flush(channel, buffer);
+            }
+            Files.move(tmp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            if (buffer.remaining() < 4) flush(channel, buffer);
+            int n = Math.min(buffer.remaining() / 4, count - i);
+            buffer.asFloatBuffer().put(values, i, n);
+            buffer.position(buffer.position() + n * 4);
+            i += n;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * CRC32 of the first and last HASH_SAMPLE_BYTES of the file. Together with size and mtime this
+     * catches in-place edits without reading a multi-GB file end to end.
+     */
+    static long sourceHash(File csv) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_SAMPLE_BYTES);
+            readFully(channel, buffer, 0);
+            buffer.flip();
+            crc.update(buffer);
+            if (size > HASH_SAMPLE_BYTES) {
+                buffer.clear();
+                readFully(channel, buffer, Math.max(HASH_SAMPLE_BYTES, size - HASH_SAMPLE_BYTES));
+                buffer.flip();
+                crc.update(buffer);
+            }
+            return crc.getValue() ^ (size << 32);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) break;
+            position += n;
+        }
+    }
+}
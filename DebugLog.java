@@ -0,0 +1,25 @@
+package rainfallPrediction;
+
+/**
+ * Switch for per-row debug printing (raw/scaled features, predictions, CSV diagnostics).
+ * Off by default because printing every row dominates throughput; enable with
+ * -Drainfall.debug=true or setEnabled(true). Callers check isEnabled() before building messages.
+ */
+public final class DebugLog {
+
+    private static volatile boolean enabled = Boolean.getBoolean("rainfall.debug");
+
+    private DebugLog() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static void println(String message) {
+        if (enabled) System.out.println(message);
+    }
+}
@@ -0,0 +1,189 @@
+package rainfallPrediction;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSV writer for large exports. Cells are encoded straight into a direct buffer that is flushed
+ * to a FileChannel in 1 MiB writes, and floats are written at a fixed number of decimals without
+ * creating Strings, so the cost per cell is a few arithmetic operations and exporting is bound by
+ * the disk rather than by formatting. Files named "*.gz" are gzip-compressed on a background
+ * thread (see CompressedFiles), overlapping compression with whatever produces the rows.
+ *
+ * The writer tracks whether a separator is due: call the cell methods for a row, then endRow().
+ * Not thread-safe.
+ */
+public class FastCsvWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    // Values this large (or non-finite) are written with Float.toString instead
+    private static final double MAX_FIXED = 1e15;
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    // Scratch for formatting one integer, filled from the end
+    private final byte[] digits = new byte[20];
+    private boolean rowStarted;
+    private long rows;
+
+    public FastCsvWriter(File file) throws IOException {
+        this(file, DEFAULT_BUFFER_BYTES);
+    }
+
+    public FastCsvWriter(File file, int bufferBytes) throws IOException {
+        if (bufferBytes < 64) throw new IllegalArgumentException("Buffer must be at least 64 bytes, got " + bufferBytes);
+        this.channel = CompressedFiles.isGzip(file)
+                ? Channels.newChannel(CompressedFiles.newOutputStream(file))
+                : FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    /**
+     * Writes a header row from the given column names.
+     */
+    public FastCsvWriter header(Iterable<String> columns) throws IOException {
+        for (String column : columns) cell(column);
+        return endRow();
+    }
+
+    /**
+     * Writes a text cell as UTF-8, unquoted; the caller is responsible for values containing commas.
+     * A null value gives an empty cell.
+     */
+    public FastCsvWriter cell(String value) throws IOException {
+        separator();
+        if (value == null) return this;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // Rare non-ASCII text: encode the rest in one go
+                putBytes(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            if (!buffer.hasRemaining()) flush();
+            buffer.put((byte) c);
+        }
+        return this;
+    }
+
+    /**
+     * Writes value rounded half-up to the given number of decimals (0 to 8), e.g. "12.50".
+     * NaN gives an empty cell; infinities and magnitudes of 1e15 or more use Float.toString.
+     */
+    public FastCsvWriter cell(float value, int decimals) throws IOException {
+        if (decimals < 0 || decimals >= POW10.length)
+            throw new IllegalArgumentException("Decimals must be in [0, " + (POW10.length - 1) + "], got " + decimals);
+        separator();
+        if (Float.isNaN(value)) return this;
+        double scaled = Math.abs((double) value) * POW10[decimals];
+        if (Float.isInfinite(value) || Math.abs(value) >= MAX_FIXED || scaled >= Long.MAX_VALUE) {
+            putBytes(Float.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return this;
+        }
+        long units = (long) (scaled + 0.5);
+        // Sign, up to 19 integer digits, the point and up to 8 decimals
+        ensure(32);
+        if (value < 0 && units != 0) buffer.put((byte) '-');
+        long whole = units / POW10[decimals];
+        putDigits(whole, 1);
+        if (decimals > 0) {
+            buffer.put((byte) '.');
+            putDigits(units - whole * POW10[decimals], decimals);
+        }
+        return this;
+    }
+
+    /**
+     * Writes count floats from values[offset, offset + count) as consecutive cells.
+     */
+    public FastCsvWriter cells(float[] values, int offset, int count, int decimals) throws IOException {
+        for (int i = 0; i < count; i++) cell(values[offset + i], decimals);
+        return this;
+    }
+
+    /**
+     * Writes an empty cell.
+     */
+    public FastCsvWriter emptyCell() throws IOException {
+        separator();
+        return this;
+    }
+
+    /**
+     * Ends the current row with '\n'.
+     */
+    public FastCsvWriter endRow() throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put((byte) '\n');
+        rowStarted = false;
+        rows++;
+        return this;
+    }
+
+    /**
+     * Rows ended so far, including the header.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Writes everything buffered so far to the file.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            if (!buffer.hasRemaining()) flush();
+            buffer.put((byte) ',');
+        }
+        rowStarted = true;
+    }
+
+    // Writes value in decimal, zero-padded to at least minDigits; the caller ensures space
+    private void putDigits(long value, int minDigits) {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (digits.length - pos < minDigits) digits[--pos] = '0';
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length; ) {
+            if (!buffer.hasRemaining()) flush();
+            int n = Math.min(buffer.remaining(), bytes.length - i);
+            buffer.put(bytes, i, n);
+            i += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+}
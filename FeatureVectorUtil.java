@@ -1,7 +1,10 @@
 package rainfallPrediction;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class FeatureVectorUtil {
     // Must match the order from feature_order.csv
@@ -21,6 +24,145 @@ public class FeatureVectorUtil {
         "Wilayah Persekutuan Labuan"
     };
 
+    public static final int FEATURE_SIZE = 4 + STATES.length;
+
+    private static final Map<String, Integer> STATE_ORDINALS = new HashMap<>();
+    static {
+        for (int i = 0; i < STATES.length; i++) STATE_ORDINALS.put(STATES[i], i);
+    }
+
+    public static int stateCount() {
+        return STATES.length;
+    }
+
+    /**
+     * State name at a one-hot position.
+     */
+    public static String stateName(int ordinal) {
+        return STATES[ordinal];
+    }
+
+    /**
+     * Position of the state in the one-hot order, or -1 if it is not a known state.
+     */
+    public static int stateOrdinal(String state) {
+        Integer ordinal = state == null ? null : STATE_ORDINALS.get(state);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Writes the feature vector in the correct order for ONNX inference into
+     * dst[offset .. offset + FEATURE_SIZE).
+     */
+    public static void writeFeatureVector(
+            float[] dst,
+            int offset,
+            float height,
+            float minMeanTemp,
+            float maxMeanTemp,
+            float meanRelHum,
+            String state
+    ) {
+        dst[offset] = height;
+        dst[offset + 1] = minMeanTemp;
+        dst[offset + 2] = maxMeanTemp;
+        dst[offset + 3] = meanRelHum;
+        for (int i = 0; i < STATES.length; i++) {
+            dst[offset + 4 + i] = STATES[i].equals(state) ? 1.0f : 0.0f;
+        }
+    }
+
+    /**
+     * Same as writeFeatureVector(..., String) with the state given as its one-hot position
+     * (-1 for an unknown state, encoded as all zeros).
+     */
+    public static void writeFeatureVector(
+            float[] dst,
+            int offset,
+            float height,
+            float minMeanTemp,
+            float maxMeanTemp,
+            float meanRelHum,
+            int stateOrdinal
+    ) {
+        writeNumericFeatures(dst, offset, height, minMeanTemp, maxMeanTemp, meanRelHum);
+        writeStateFeatures(dst, offset, stateOrdinal);
+    }
+
+    /**
+     * Writes only the numeric part of the feature vector at dst[offset ..], leaving the one-hot
+     * state columns for writeStateFeatures.
+     */
+    public static void writeNumericFeatures(
+            float[] dst,
+            int offset,
+            float height,
+            float minMeanTemp,
+            float maxMeanTemp,
+            float meanRelHum
+    ) {
+        dst[offset] = height;
+        dst[offset + 1] = minMeanTemp;
+        dst[offset + 2] = maxMeanTemp;
+        dst[offset + 3] = meanRelHum;
+    }
+
+    /**
+     * Writes only the one-hot state columns of the feature vector that starts at dst[offset]
+     * (-1 for an unknown state, encoded as all zeros).
+     */
+    public static void writeStateFeatures(float[] dst, int offset, int stateOrdinal) {
+        for (int i = 0; i < STATES.length; i++) {
+            dst[offset + 4 + i] = i == stateOrdinal ? 1.0f : 0.0f;
+        }
+    }
+
+    /**
+     * Builds the feature vector in the correct order for ONNX inference as a primitive array.
+     *
+     * @return float[] of size 17, matching feature_order.csv
+     */
+    public static float[] buildFeatureArray(
+            float height,
+            float minMeanTemp,
+            float maxMeanTemp,
+            float meanRelHum,
+            String state
+    ) {
+        float[] features = new float[FEATURE_SIZE];
+        writeFeatureVector(features, 0, height, minMeanTemp, maxMeanTemp, meanRelHum, state);
+        return features;
+    }
+
+    /**
+     * Wraps a primitive feature vector as a List; each get() boxes on access.
+     */
+    public static List<Float> asList(float[] features) {
+        return new AbstractList<Float>() {
+            @Override
+            public Float get(int index) {
+                return features[index];
+            }
+
+            @Override
+            public int size() {
+                return features.length;
+            }
+        };
+    }
+
+    /**
+     * Copies a List feature vector into a primitive array; null entries become NaN.
+     */
+    public static float[] toArray(List<Float> features) {
+        float[] out = new float[features.size()];
+        for (int i = 0; i < out.length; i++) {
+            Float f = features.get(i);
+            out[i] = f == null ? Float.NaN : f;
+        }
+        return out;
+    }
+
     /**
      * Builds the feature vector in the correct order for ONNX inference.
      * 
@@ -38,14 +180,9 @@ public class FeatureVectorUtil {
             float meanRelHum,
             String state
     ) {
-        List<Float> features = new ArrayList<>(17);
-        features.add(height);
-        features.add(minMeanTemp);
-        features.add(maxMeanTemp);
-        features.add(meanRelHum);
-        for (String s : STATES) {
-            features.add(s.equals(state) ? 1.0f : 0.0f);
-        }
+        float[] array = buildFeatureArray(height, minMeanTemp, maxMeanTemp, meanRelHum, state);
+        List<Float> features = new ArrayList<>(FEATURE_SIZE);
+        for (float f : array) features.add(f);
         return features;
     }
 }
\ No newline at end of file
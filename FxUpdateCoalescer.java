@@ -0,0 +1,136 @@
+package rainfallPrediction;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Moves prediction results from worker threads to the FX thread without flooding the event
+ * queue. Workers submit finished batches to a lock-free queue; an AnimationTimer drains it once
+ * per pulse, applying at most maxRowsPerPulse rows so a frame never stalls, then calls onPulse
+ * once (e.g. to refresh the table). Failures are only counted; errorSummary() gives a single
+ * message for all of them.
+ */
+public class FxUpdateCoalescer {
+
+    public static final int DEFAULT_MAX_ROWS_PER_PULSE = 20_000;
+
+    /**
+     * Applies predictions[offset .. offset + count) to rows [from, from + count). Runs on the FX thread.
+     */
+    public interface Sink {
+        void apply(int from, float[] predictions, int offset, int count);
+    }
+
+    private static final class Batch {
+        final int from;
+        final float[] predictions;
+        final int count;
+        // Rows already applied; only touched on the FX thread
+        int applied;
+
+        Batch(int from, float[] predictions, int count) {
+            this.from = from;
+            this.predictions = predictions;
+            this.count = count;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Batch> pending = new ConcurrentLinkedQueue<>();
+    private final Sink sink;
+    private final Runnable onPulse;
+    private final int maxRowsPerPulse;
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+    private final AnimationTimer timer;
+    private Runnable onDrained;
+
+    public FxUpdateCoalescer(Sink sink, Runnable onPulse) {
+        this(sink, onPulse, DEFAULT_MAX_ROWS_PER_PULSE);
+    }
+
+    public FxUpdateCoalescer(Sink sink, Runnable onPulse, int maxRowsPerPulse) {
+        if (maxRowsPerPulse < 1)
+            throw new IllegalArgumentException("Rows per pulse must be at least 1, got " + maxRowsPerPulse);
+        this.sink = sink;
+        this.onPulse = onPulse;
+        this.maxRowsPerPulse = maxRowsPerPulse;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Starts draining on every pulse. Call on the FX thread.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Queues predictions[0 .. count) for rows [from, from + count). Safe from any thread;
+     * the array must not be modified afterwards.
+     */
+    public void submit(int from, float[] predictions, int count) {
+        if (count > 0) pending.add(new Batch(from, predictions, count));
+    }
+
+    /**
+     * Records a failed batch of rows. Safe from any thread.
+     */
+    public void fail(int rows, Throwable error) {
+        failedRows.addAndGet(rows);
+        failedBatches.incrementAndGet();
+        firstError.compareAndSet(null, error.getMessage() != null ? error.getMessage() : error.toString());
+    }
+
+    /**
+     * Marks the producer as done: once everything queued has been applied the timer stops and
+     * onDrained runs (on the FX thread). Call on the FX thread.
+     */
+    public void finish(Runnable onDrained) {
+        this.onDrained = onDrained;
+        drain();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    /**
+     * One message describing every failure, or null if nothing failed.
+     */
+    public String errorSummary() {
+        long rows = failedRows.get();
+        if (rows == 0 && failedBatches.get() == 0) return null;
+        return String.format("Prediction failed for %d row(s) in %d batch(es). First error: %s",
+                rows, failedBatches.get(), firstError.get());
+    }
+
+    private void drain() {
+        int budget = maxRowsPerPulse;
+        boolean applied = false;
+        Batch batch;
+        while (budget > 0 && (batch = pending.peek()) != null) {
+            int n = Math.min(budget, batch.count - batch.applied);
+            sink.apply(batch.from + batch.applied, batch.predictions, batch.applied, n);
+            batch.applied += n;
+            budget -= n;
+            applied = true;
+            if (batch.applied == batch.count) pending.poll();
+        }
+        if (applied && onPulse != null) onPulse.run();
+        if (onDrained != null && pending.isEmpty()) {
+            timer.stop();
+            Runnable done = onDrained;
+            onDrained = null;
+            done.run();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package rainfallPrediction;
+
+/**
+ * Result of MetricsEngine.evaluateByGroup: overall metrics plus one entry per group key
+ * (for rainfall data, the state ordinal). Groups without rows have a null entry.
+ */
+public class GroupedMetrics {
+
+    private final PredictionMetrics total;
+    private final long totalCount;
+    private final PredictionMetrics[] groups;
+    private final long[] counts;
+
+    GroupedMetrics(PredictionMetrics total, long totalCount, PredictionMetrics[] groups, long[] counts) {
+        this.total = total;
+        this.totalCount = totalCount;
+        this.groups = groups;
+        this.counts = counts;
+    }
+
+    /**
+     * Metrics over every evaluated row, or null if there were none.
+     */
+    public PredictionMetrics getTotal() {
+        return total;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int groupCount() {
+        return groups.length;
+    }
+
+    /**
+     * Metrics for one group, or null if the group had no rows.
+     */
+    public PredictionMetrics getGroup(int group) {
+        return groups[group];
+    }
+
+    public long getCount(int group) {
+        return counts[group];
+    }
+
+    /**
+     * One line per non-empty group ("name (n=..): RMSE .., MAE .., MAPE ..%"), for dialogs and logs.
+     */
+    public String formatGroups(String[] names) {
+        StringBuilder sb = new StringBuilder();
+        for (int g = 0; g < groups.length; g++) {
+            PredictionMetrics m = groups[g];
+            if (m == null) continue;
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format("%s (n=%d): RMSE %.4f, MAE %.4f, MAPE %.2f%%",
+                    g < names.length ? names[g] : "Group " + g, counts[g], m.rmse, m.mae, m.mape));
+        }
+        return sb.toString();
+    }
+}
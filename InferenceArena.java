@@ -0,0 +1,215 @@
+package rainfallPrediction;
+
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.TranslateException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-lived inference state for one worker: a Predictor, an NDManager and the input/output
+ * buffers it reuses across calls and batches.
+ * Not thread-safe; PredictorPool hands each arena to one thread at a time.
+ * Closed together with the pool from RainfallModelService.close().
+ */
+public class InferenceArena implements AutoCloseable {
+
+    public static final int FEATURE_SIZE = RainfallModelService.FEATURE_SIZE;
+
+    // Input tensors kept alive per batch row count (full batches, single rows, a trailing partial batch)
+    private static final int MAX_CACHED_INPUTS = 4;
+
+    // Counters summed over every arena in the process, see stats()
+    private static final LongAdder BATCHES = new LongAdder();
+    private static final LongAdder ROWS = new LongAdder();
+    private static final LongAdder TENSORS_CREATED = new LongAdder();
+    private static final LongAdder TENSORS_REUSED = new LongAdder();
+    private static final LongAdder MANAGERS_CREATED = new LongAdder();
+    private static final LongAdder HEAP_BYTES = new LongAdder();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Predictor<NDList, NDList> predictor;
+    private final NDManager manager;
+    private final Map<Integer, NDArray> inputs = new LinkedHashMap<>(MAX_CACHED_INPUTS, 0.75f, true);
+    private boolean inputSetSupported = true;
+
+    private float[] staging;
+    private float[] output;
+    private FloatBuffer direct;
+
+    public InferenceArena(ZooModel<NDList, NDList> model, int capacityRows) {
+        this.predictor = model.newPredictor();
+        this.manager = model.getNDManager().newSubManager();
+        MANAGERS_CREATED.increment();
+        ensureCapacity(capacityRows);
+    }
+
+    /**
+     * Grows the buffers so that a batch of rows fits; existing buffers are kept when large enough.
+     */
+    public void ensureCapacity(int rows) {
+        if (staging != null && staging.length >= rows * FEATURE_SIZE) return;
+        staging = new float[rows * FEATURE_SIZE];
+        output = new float[rows];
+        direct = ByteBuffer.allocateDirect(rows * FEATURE_SIZE * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    /**
+     * Buffer to write scaled rows into before calling run(); row r starts at r * FEATURE_SIZE.
+     */
+    public float[] stagingBuffer() {
+        return staging;
+    }
+
+    /**
+     * Buffer holding the predictions from the last run(), one per row.
+     */
+    public float[] outputBuffer() {
+        return output;
+    }
+
+    /**
+     * Runs the first rows of the staging buffer through the model as one [rows, FEATURE_SIZE] tensor
+     * and copies the predictions into outputBuffer().
+     *
+     * @return number of predictions written, at most rows
+     */
+    public int run(int rows) throws TranslateException {
+        if (rows < 1 || rows * FEATURE_SIZE > staging.length) {
+            throw new IllegalArgumentException("Batch of " + rows + " rows does not fit arena capacity " + output.length);
+        }
+        long heapBefore = allocatedBytes();
+
+        direct.clear();
+        direct.put(staging, 0, rows * FEATURE_SIZE);
+        direct.flip();
+
+        NDList result = predictor.predict(new NDList(input(rows)));
+        int count;
+        try {
+            NDArray array = result.singletonOrThrow();
+            FloatBuffer values = array.toByteBuffer().asFloatBuffer();
+            count = Math.min(rows, values.remaining());
+            values.get(output, 0, count);
+        } finally {
+            result.close();
+        }
+
+        BATCHES.increment();
+        ROWS.add(rows);
+        if (heapBefore >= 0) HEAP_BYTES.add(allocatedBytes() - heapBefore);
+        return count;
+    }
+
+    /**
+     * Returns the input tensor for this row count filled from the direct buffer,
+     * reusing the one from an earlier batch of the same size where the engine allows it.
+     */
+    private NDArray input(int rows) {
+        NDArray input = inputs.get(rows);
+        if (input != null && inputSetSupported) {
+            try {
+                input.set(direct);
+                TENSORS_REUSED.increment();
+                return input;
+            } catch (UnsupportedOperationException e) {
+                // Engine arrays are immutable; fall back to a fresh tensor per batch
+                inputSetSupported = false;
+            }
+        }
+        if (input != null) {
+            inputs.remove(rows);
+            input.close();
+        }
+        input = manager.create(direct, new Shape(rows, FEATURE_SIZE));
+        input.setName("float_input");
+        TENSORS_CREATED.increment();
+        inputs.put(rows, input);
+        if (inputs.size() > MAX_CACHED_INPUTS) {
+            Iterator<NDArray> eldest = inputs.values().iterator();
+            eldest.next().close();
+            eldest.remove();
+        }
+        return input;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        for (NDArray input : inputs.values()) {
+            try {
+                input.close();
+            } catch (Exception ignored) {}
+        }
+        inputs.clear();
+        try {
+            predictor.close();
+        } catch (Exception ignored) {}
+        try {
+            manager.close();
+        } catch (Exception ignored) {}
+    }
+
+    /**
+     * Snapshot of the process-wide arena counters, for comparing allocation behaviour
+     * before and after a run (heapBytesPerRow is JVM heap allocated on the inference path).
+     */
+    public static Stats stats() {
+        return new Stats(BATCHES.sum(), ROWS.sum(), TENSORS_CREATED.sum(), TENSORS_REUSED.sum(),
+                MANAGERS_CREATED.sum(), HEAP_BYTES.sum());
+    }
+
+    public static class Stats {
+        public final long batches;
+        public final long rows;
+        public final long tensorsCreated;
+        public final long tensorsReused;
+        public final long managersCreated;
+        public final long heapBytes;
+
+        public Stats(long batches, long rows, long tensorsCreated, long tensorsReused,
+                     long managersCreated, long heapBytes) {
+            this.batches = batches;
+            this.rows = rows;
+            this.tensorsCreated = tensorsCreated;
+            this.tensorsReused = tensorsReused;
+            this.managersCreated = managersCreated;
+            this.heapBytes = heapBytes;
+        }
+
+        public double heapBytesPerRow() {
+            return rows == 0 ? 0.0 : (double) heapBytes / rows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "batches=%d, rows=%d, tensorsCreated=%d, tensorsReused=%d, managersCreated=%d, heapBytes=%d (%.1f B/row)",
+                batches, rows, tensorsCreated, tensorsReused, managersCreated, heapBytes, heapBytesPerRow());
+        }
+    }
+}
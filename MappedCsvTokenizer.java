@@ -0,0 +1,519 @@
+package rainfallPrediction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Allocation-light CSV tokenizer over a memory-mapped file.
+ * Lines and fields are found by scanning bytes (no String per line, no split()), numbers are
+ * parsed straight from the byte range, and known state names are matched byte-for-byte so
+ * they need no String either. Produces the same RowChunks, skipped-row counts and DEBUG
+ * diagnostics as CsvStreamParser's line reader, including CsvRowParser.parseSafeFloat's
+ * tolerance for "-", "N/A", parentheses and "m" unit suffixes.
+ * parseParallel splits the file into newline-aligned byte ranges tokenized on ForkJoin workers.
+ */
+public class MappedCsvTokenizer {
+
+    // Files are mapped in windows of this size; a window boundary never splits a line
+    private static final long WINDOW = 256L << 20;
+
+    // Powers of ten that are exact in float (5^10 < 2^24)
+    private static final float[] POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final long EXACT_MANTISSA = 1L << 24;
+
+    // Files smaller than this per worker are not worth splitting
+    private static final long MIN_RANGE_BYTES = 1L << 20;
+    // Ranges per worker; more ranges let the in-order hand-off start earlier and bound buffering
+    private static final int RANGES_PER_WORKER = 4;
+
+    private static final byte[][] STATE_BYTES = new byte[FeatureVectorUtil.stateCount()][];
+    static {
+        for (int i = 0; i < STATE_BYTES.length; i++) {
+            STATE_BYTES[i] = FeatureVectorUtil.stateName(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final CsvRowParser.Columns cols;
+    private int[] fieldStart;
+    private int[] fieldEnd;
+    // Set for ranges after the first of a parallel parse: their absolute line numbers are only
+    // known once earlier ranges are done, so DEBUG lines are collected and printed at merge time
+    private boolean deferDebug;
+    private List<DeferredDebug> deferred;
+    // Set for parallel ranges: chunk times are summed here and recorded once per range, so the
+    // workers don't contend on the shared stage histograms
+    private boolean deferMetrics;
+    private long parseNanos;
+    private long encodeNanos;
+
+    public MappedCsvTokenizer(FileChannel channel, CsvRowParser.Columns cols) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.cols = cols;
+        this.fieldStart = new int[Math.max(8, cols.count)];
+        this.fieldEnd = new int[fieldStart.length];
+    }
+
+    /**
+     * Parses a whole file. Same contract as CsvStreamParser.parse(Reader, ...).
+     */
+    public static CsvStreamParser.Result parse(File file, int chunkRows, Consumer<RowChunk> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            CsvStreamParser.Result result = new CsvStreamParser.Result();
+            long dataStart = readHeader(channel, result);
+            if (dataStart < 0) return result;
+            CsvRowParser.Columns cols = CsvRowParser.resolve(result.columns);
+            if (!cols.hasRequired()) {
+                throw new IOException("CSV missing one or more required columns (height, minMeanTemp, maxMeanTemp, meanRelHum, state). Headers: " + result.columns);
+            }
+            RowChunk chunk = new RowChunk(chunkRows);
+            chunk.hasTarget = cols.target != -1;
+            new MappedCsvTokenizer(channel, cols).parseRange(dataStart, channel.size(), 2, chunk, consumer, result);
+            if (chunk.size > 0) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parses a whole file on up to parallelism ForkJoin workers. Same contract as parse(): chunks
+     * reach the consumer on the calling thread in file order, with firstRow numbered across the
+     * file, and the row/skipped counts and DEBUG diagnostics (with absolute line numbers) match a
+     * sequential parse. Chunk sizes may vary since each range ends with a partial chunk; chunks
+     * are not reused. Ranges that finish ahead of the one being handed off are held in memory.
+     * CSV_PARSE and FEATURE_ENCODE get one sample per range rather than per chunk.
+     */
+    public static CsvStreamParser.Result parseParallel(File file, int chunkRows, int parallelism,
+                                                       Consumer<RowChunk> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            CsvStreamParser.Result result = new CsvStreamParser.Result();
+            long dataStart = readHeader(channel, result);
+            if (dataStart < 0) return result;
+            CsvRowParser.Columns cols = CsvRowParser.resolve(result.columns);
+            if (!cols.hasRequired()) {
+                throw new IOException("CSV missing one or more required columns (height, minMeanTemp, maxMeanTemp, meanRelHum, state). Headers: " + result.columns);
+            }
+            long size = channel.size();
+            int ranges = (int) Math.min((long) Math.max(1, parallelism) * RANGES_PER_WORKER,
+                    Math.max(1, (size - dataStart) / MIN_RANGE_BYTES));
+            long[] bounds = splitOnLines(channel, dataStart, size, ranges);
+            if (bounds.length == 2) {
+                RowChunk chunk = new RowChunk(chunkRows);
+                chunk.hasTarget = cols.target != -1;
+                new MappedCsvTokenizer(channel, cols).parseRange(dataStart, size, 2, chunk, consumer, result);
+                if (chunk.size > 0) consumer.accept(chunk);
+                return result;
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                List<ForkJoinTask<ParsedRange>> tasks = new ArrayList<>();
+                for (int k = 0; k + 1 < bounds.length; k++) {
+                    long start = bounds[k];
+                    long end = bounds[k + 1];
+                    boolean first = k == 0;
+                    tasks.add(pool.submit(() -> parseRangeBuffered(channel, cols, chunkRows, start, end, first)));
+                }
+                // Hand ranges off in file order, renumbering lines and rows as we go
+                int lineOffset = 1;
+                long nextRow = 0;
+                for (ForkJoinTask<ParsedRange> task : tasks) {
+                    ParsedRange range = join(task);
+                    if (range.deferred != null) {
+                        for (DeferredDebug d : range.deferred) {
+                            DebugLog.println(d.before + (d.lineNumber + lineOffset) + d.after);
+                        }
+                    }
+                    lineOffset = range.first ? range.lines + 1 : lineOffset + range.lines;
+                    result.rows += range.result.rows;
+                    result.skippedRows += range.result.skippedRows;
+                    for (RowChunk chunk : range.chunks) {
+                        chunk.firstRow = nextRow;
+                        nextRow += chunk.size;
+                        consumer.accept(chunk);
+                    }
+                }
+                return result;
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Range boundaries: bounds[0] = start, bounds[last] = end, each inner bound moved forward to
+     * the start of the next line. Empty ranges are dropped.
+     */
+    static long[] splitOnLines(FileChannel channel, long start, long end, int ranges) throws IOException {
+        long[] bounds = new long[ranges + 1];
+        int count = 0;
+        bounds[count++] = start;
+        long step = (end - start) / ranges;
+        for (int k = 1; k < ranges; k++) {
+            long bound = nextLineStart(channel, Math.max(start + k * step, bounds[count - 1]), end);
+            if (bound > bounds[count - 1] && bound < end) bounds[count++] = bound;
+        }
+        bounds[count++] = end;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // First line start at or after position (a position right after a terminator is a line start)
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64 << 10);
+        long pos = position - 1;
+        while (pos < end) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) return end;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == '\n') return pos + i + 1;
+                if (b == '\r') {
+                    // \r\n counts as one terminator; a \r at the end of the buffer needs one more byte
+                    if (i + 1 < n) return buf.get(i + 1) == '\n' ? pos + i + 2 : pos + i + 1;
+                    ByteBuffer next = ByteBuffer.allocate(1);
+                    return channel.read(next, pos + i + 1) == 1 && next.get(0) == '\n' ? pos + i + 2 : pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return end;
+    }
+
+    private static ParsedRange parseRangeBuffered(FileChannel channel, CsvRowParser.Columns cols, int chunkRows,
+                                                  long start, long end, boolean first) throws IOException {
+        MappedCsvTokenizer tokenizer = new MappedCsvTokenizer(channel, cols);
+        tokenizer.deferDebug = !first;
+        tokenizer.deferMetrics = true;
+        ParsedRange range = new ParsedRange(first);
+        RowChunk chunk = newChunk(chunkRows, cols);
+        // parseRange reuses its chunk, so full chunks are copied out
+        range.lines = tokenizer.parseRange(start, end, first ? 2 : 1, chunk, full -> range.chunks.add(full.copy()), range.result);
+        if (chunk.size > 0) range.chunks.add(chunk.copy());
+        range.deferred = tokenizer.deferred;
+        if (range.result.rows > 0) {
+            PipelineMetrics.record(PipelineMetrics.Stage.CSV_PARSE, tokenizer.parseNanos, range.result.rows);
+            PipelineMetrics.record(PipelineMetrics.Stage.FEATURE_ENCODE, tokenizer.encodeNanos, range.result.rows);
+        }
+        return range;
+    }
+
+    private static RowChunk newChunk(int chunkRows, CsvRowParser.Columns cols) {
+        RowChunk chunk = new RowChunk(chunkRows);
+        chunk.hasTarget = cols.target != -1;
+        return chunk;
+    }
+
+    private static ParsedRange join(ForkJoinTask<ParsedRange> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV parse interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class ParsedRange {
+        final boolean first;
+        final CsvStreamParser.Result result = new CsvStreamParser.Result();
+        final List<RowChunk> chunks = new ArrayList<>();
+        int lines;
+        List<DeferredDebug> deferred;
+
+        ParsedRange(boolean first) {
+            this.first = first;
+        }
+    }
+
+    private static final class DeferredDebug {
+        final String before;
+        final int lineNumber;
+        final String after;
+
+        DeferredDebug(String before, int lineNumber, String after) {
+            this.before = before;
+            this.lineNumber = lineNumber;
+            this.after = after;
+        }
+    }
+
+    /**
+     * Reads the header line into result.columns.
+     *
+     * @return file offset of the first data line, or -1 if the file is empty
+     */
+    public static long readHeader(FileChannel channel, CsvStreamParser.Result result) throws IOException {
+        long size = channel.size();
+        if (size == 0) return -1;
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, 1 << 20));
+        int lim = buf.limit();
+        int end = 0;
+        while (end < lim && buf.get(end) != '\n' && buf.get(end) != '\r') end++;
+        if (end == lim && lim < size) throw new IOException("CSV header line is longer than 1 MiB");
+        for (String h : decode(buf, 0, end).split(",")) {
+            result.columns.add(h.trim());
+        }
+        if (end == lim) return end;
+        return (buf.get(end) == '\r' && end + 1 < lim && buf.get(end + 1) == '\n') ? end + 2 : end + 1;
+    }
+
+    /**
+     * Parses the lines that start in [start, end); start must be the beginning of a line.
+     * Full chunks are passed to consumer; a trailing partial chunk is left in chunk for the caller,
+     * with its states already encoded.
+     *
+     * @param firstLine 1-based line number of the line at start, for diagnostics
+     * @return number of lines seen (including blank and skipped ones)
+     */
+    public int parseRange(long start, long end, int firstLine, RowChunk chunk, Consumer<RowChunk> consumer,
+                          CsvStreamParser.Result result) throws IOException {
+        int lineNumber = firstLine - 1;
+        long chunkStart = System.nanoTime();
+        long pos = start;
+        while (pos < end) {
+            long windowLength = Math.min(WINDOW, fileSize - pos);
+            boolean lastWindow = pos + windowLength >= fileSize;
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, windowLength);
+            int lim = (int) windowLength;
+            int i = 0;
+            while (i < lim && pos + i < end) {
+                int j = i;
+                byte b = 0;
+                while (j < lim && (b = buf.get(j)) != '\n' && b != '\r') j++;
+                // Line (or its \r\n terminator) continues past this window: remap from the line start
+                boolean incomplete = j == lim || (b == '\r' && j + 1 == lim);
+                if (incomplete && !lastWindow) {
+                    if (i == 0) throw new IOException("CSV line at offset " + pos + " is longer than " + WINDOW + " bytes");
+                    break;
+                }
+                lineNumber++;
+                if (parseLine(buf, i, j, lineNumber, chunk, result)) {
+                    result.rows++;
+                    if (chunk.isFull()) {
+                        finishChunk(chunk, chunkStart);
+                        consumer.accept(chunk);
+                        chunk.clear();
+                        chunkStart = System.nanoTime();
+                    }
+                }
+                if (j < lim) j += (b == '\r' && j + 1 < lim && buf.get(j + 1) == '\n') ? 2 : 1;
+                i = j;
+            }
+            pos += i;
+            if (lastWindow && i >= lim) break;
+        }
+        if (chunk.size > 0) finishChunk(chunk, chunkStart);
+        return lineNumber - firstLine + 1;
+    }
+
+    /**
+     * Writes the chunk's one-hot state columns and records its parse and encode time, once per
+     * chunk rather than per row (or adds them to the range totals when deferMetrics is set).
+     */
+    private void finishChunk(RowChunk chunk, long chunkStart) {
+        long encodeStart = System.nanoTime();
+        chunk.encodeStates();
+        long encodeEnd = System.nanoTime();
+        if (deferMetrics) {
+            parseNanos += encodeStart - chunkStart;
+            encodeNanos += encodeEnd - encodeStart;
+            return;
+        }
+        PipelineMetrics.record(PipelineMetrics.Stage.CSV_PARSE, encodeStart - chunkStart, chunk.size);
+        PipelineMetrics.record(PipelineMetrics.Stage.FEATURE_ENCODE, encodeEnd - encodeStart, chunk.size);
+    }
+
+    /**
+     * Tokenizes the line in buf[from, to) and appends it to the chunk.
+     *
+     * @return false if the row was blank or skipped
+     */
+    private boolean parseLine(MappedByteBuffer buf, int from, int to, int lineNumber, RowChunk chunk,
+                              CsvStreamParser.Result result) {
+        int first = from;
+        while (first < to && (buf.get(first) & 0xFF) <= ' ') first++;
+        if (first == to) return false; // blank line, not counted as skipped
+
+        int fields = 0;
+        int fieldFrom = from;
+        for (int k = from; k <= to; k++) {
+            if (k == to || buf.get(k) == ',') {
+                if (fields == fieldStart.length) {
+                    fieldStart = Arrays.copyOf(fieldStart, fields * 2);
+                    fieldEnd = Arrays.copyOf(fieldEnd, fields * 2);
+                }
+                fieldStart[fields] = fieldFrom;
+                fieldEnd[fields] = k;
+                fields++;
+                fieldFrom = k + 1;
+            }
+        }
+        if (fields < cols.count) {
+            if (DebugLog.isEnabled()) debug("DEBUG: Skipping row ", lineNumber, " due to column count mismatch. Expected " + cols.count + ", got " + fields);
+            result.skippedRows++;
+            return false;
+        }
+
+        int r = chunk.size;
+        int off = r * RowChunk.FEATURE_SIZE;
+        int stateOrdinal = stateOrdinal(buf, fieldStart[cols.state], fieldEnd[cols.state]);
+        String stateVal = stateOrdinal >= 0 ? FeatureVectorUtil.stateName(stateOrdinal)
+                : decodeTrimmed(buf, fieldStart[cols.state], fieldEnd[cols.state]);
+
+        // Extra diagnostic: print first 5 state values to catch typos
+        if (lineNumber <= 6 && !deferDebug && DebugLog.isEnabled()) DebugLog.println("DEBUG: Row " + lineNumber + " stateVal='" + stateVal + "'");
+
+        float height = parseFloat(buf, fieldStart[cols.height], fieldEnd[cols.height]);
+        float minMeanTemp = parseFloat(buf, fieldStart[cols.minMeanTemp], fieldEnd[cols.minMeanTemp]);
+        float maxMeanTemp = parseFloat(buf, fieldStart[cols.maxMeanTemp], fieldEnd[cols.maxMeanTemp]);
+        float meanRelHum = parseFloat(buf, fieldStart[cols.meanRelHum], fieldEnd[cols.meanRelHum]);
+
+        // Numeric features now; the one-hot state follows per chunk in finishChunk (ONNX order)
+        FeatureVectorUtil.writeNumericFeatures(chunk.features, off, height, minMeanTemp, maxMeanTemp, meanRelHum);
+        if (stateOrdinal < 0 && DebugLog.isEnabled()) {
+            debug("DEBUG: Row ", lineNumber, " WARNING: state '" + stateVal + "' not in STATE_LIST, will be encoded as all zeros.");
+        }
+        if (!Float.isFinite(height) || !Float.isFinite(minMeanTemp) || !Float.isFinite(maxMeanTemp) || !Float.isFinite(meanRelHum)) {
+            if (DebugLog.isEnabled()) debug("DEBUG: Skipping row ", lineNumber, ". Non-finite value in features: "
+                    + Arrays.toString(Arrays.copyOfRange(chunk.features, off, off + 4)));
+            result.skippedRows++;
+            return false;
+        }
+
+        chunk.states[r] = stateVal;
+        chunk.stateOrdinals[r] = stateOrdinal;
+        chunk.targets[r] = cols.target != -1 ? parseFloat(buf, fieldStart[cols.target], fieldEnd[cols.target]) : Float.NaN;
+        chunk.predictions[r] = cols.prediction != -1 && cols.prediction < fields
+                ? decode(buf, fieldStart[cols.prediction], fieldEnd[cols.prediction]) : null;
+        chunk.size++;
+        return true;
+    }
+
+    private void debug(String before, int lineNumber, String after) {
+        if (!deferDebug) {
+            DebugLog.println(before + lineNumber + after);
+            return;
+        }
+        if (deferred == null) deferred = new ArrayList<>();
+        deferred.add(new DeferredDebug(before, lineNumber, after));
+    }
+
+    /**
+     * Byte-level equivalent of CsvRowParser.parseSafeFloat for buf[from, to).
+     * Plain decimals ("12.5", "-3", "(4.2)", "37.8m", "1e3") are parsed in place when the result is
+     * exactly representable through one float multiply or divide; anything else goes through
+     * parseSafeFloat on a decoded String, so both paths agree.
+     */
+    static float parseFloat(MappedByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+
+        boolean negative = false;
+        boolean signSeen = false;
+        boolean dotSeen = false;
+        boolean exponentSeen = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        long mantissa = 0;
+        int exponent = 0;
+        int k = from;
+        for (; k < to; k++) {
+            byte b = buf.get(k);
+            if (b == '(' || b == ')' || b == 'm') continue;
+            if (b >= '0' && b <= '9') {
+                if (++digits > 18) return slowParse(buf, from, to);
+                mantissa = mantissa * 10 + (b - '0');
+                if (dotSeen) fractionDigits++;
+            } else if (b == '.' && !dotSeen) {
+                dotSeen = true;
+            } else if ((b == '-' || b == '+') && !signSeen && digits == 0 && !dotSeen) {
+                signSeen = true;
+                negative = b == '-';
+            } else if ((b == 'e' || b == 'E') && digits > 0) {
+                exponentSeen = true;
+                k++;
+                break;
+            } else {
+                return slowParse(buf, from, to);
+            }
+        }
+        if (exponentSeen) {
+            boolean expNegative = false;
+            int expDigits = 0;
+            for (; k < to; k++) {
+                byte b = buf.get(k);
+                if (b == '(' || b == ')' || b == 'm') continue;
+                if (b >= '0' && b <= '9') {
+                    if (++expDigits > 3) return slowParse(buf, from, to);
+                    exponent = exponent * 10 + (b - '0');
+                } else if ((b == '-' || b == '+') && expDigits == 0) {
+                    expNegative = b == '-';
+                } else {
+                    return slowParse(buf, from, to);
+                }
+            }
+            if (expDigits == 0) return slowParse(buf, from, to);
+            if (expNegative) exponent = -exponent;
+        }
+        if (digits == 0) return slowParse(buf, from, to);
+
+        if (mantissa == 0) return negative ? -0.0f : 0.0f;
+        int scale = exponent - fractionDigits;
+        if (mantissa > EXACT_MANTISSA || scale < -10 || scale > 10) return slowParse(buf, from, to);
+        // Both operands are exact floats, so IEEE rounding gives the correctly rounded result
+        float value = scale < 0 ? (float) mantissa / POW10[-scale] : (float) mantissa * POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private static float slowParse(MappedByteBuffer buf, int from, int to) {
+        return CsvRowParser.parseSafeFloat(decode(buf, from, to));
+    }
+
+    /**
+     * Matches the trimmed field against the known state names without decoding it.
+     */
+    private static int stateOrdinal(MappedByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+        int length = to - from;
+        for (int s = 0; s < STATE_BYTES.length; s++) {
+            byte[] name = STATE_BYTES[s];
+            if (name.length != length) continue;
+            int k = 0;
+            while (k < length && buf.get(from + k) == name[k]) k++;
+            if (k == length) return s;
+        }
+        return -1;
+    }
+
+    private static String decode(MappedByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int k = 0; k < bytes.length; k++) bytes[k] = buf.get(from + k);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String decodeTrimmed(MappedByteBuffer buf, int from, int to) {
+        return decode(buf, from, to).trim();
+    }
+}
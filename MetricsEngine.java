@@ -0,0 +1,414 @@
+package rainfallPrediction;
+
+import java.util.Objects;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Regression metrics over primitive arrays, computed with fork-join reductions on the common pool.
+ * One parallel pass produces RMSE, MAE, MAPE and explained variance (per-chunk Welford
+ * statistics combined with Chan's merge) and fills the absolute-error array; the exact median of
+ * that array then comes from a parallel radix select over its bit patterns (non-negative doubles
+ * order like their raw bits) instead of a full sort.
+ *
+ * Formulas (shared by PredictionMetrics and PredictionEvaluator):
+ * RMSE = sqrt(mean(err^2)), MAE = mean(|err|), MAPE = mean(|err / actual|) * 100 over non-zero
+ * actuals (NaN if there are none), Median Abs Error = median(|err|) (mean of the two middle
+ * values for even n), Explained Variance = 1 - Var(actual - predicted) / Var(actual), or 1.0
+ * when the actuals are constant; err = predicted - actual.
+ *
+ * evaluateByGroup computes the same metrics per group (e.g. per state) and overall in one pass.
+ */
+public final class MetricsEngine {
+
+    // Rows per fork-join leaf; smaller inputs run on the calling thread
+    static final int GRAIN = 1 << 15;
+
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    private MetricsEngine() {}
+
+    public static PredictionMetrics evaluate(double[] actuals, double[] predictions, int n) {
+        checkArgs(actuals, predictions, n, actuals == null ? 0 : actuals.length, predictions == null ? 0 : predictions.length);
+        double[] absErrors = new double[n];
+        Partial p = new ReduceTask(actuals, predictions, null, null, absErrors, 0, n).invoke();
+        return finish(p, absErrors, n);
+    }
+
+    public static PredictionMetrics evaluate(float[] actuals, float[] predictions, int n) {
+        checkArgs(actuals, predictions, n, actuals == null ? 0 : actuals.length, predictions == null ? 0 : predictions.length);
+        double[] absErrors = new double[n];
+        Partial p = new ReduceTask(null, null, actuals, predictions, absErrors, 0, n).invoke();
+        return finish(p, absErrors, n);
+    }
+
+    /**
+     * Metrics for every group key in [0, groupCount) plus the overall total, in a single parallel
+     * pass over the rows. Rows whose actual or prediction is not finite are ignored; rows with a
+     * key outside [0, groupCount) only count towards the total. The total's median is exact, while
+     * per-group medians are QuantileSketch estimates.
+     */
+    public static GroupedMetrics evaluateByGroup(float[] actuals, float[] predictions, byte[] groups,
+                                                 int groupCount, int n) {
+        checkArgs(actuals, predictions, n, actuals == null ? 0 : actuals.length, predictions == null ? 0 : predictions.length);
+        return evaluateByGroup(null, null, actuals, predictions, groups, groupCount, n);
+    }
+
+    public static GroupedMetrics evaluateByGroup(double[] actuals, double[] predictions, byte[] groups,
+                                                 int groupCount, int n) {
+        checkArgs(actuals, predictions, n, actuals == null ? 0 : actuals.length, predictions == null ? 0 : predictions.length);
+        return evaluateByGroup(actuals, predictions, null, null, groups, groupCount, n);
+    }
+
+    private static GroupedMetrics evaluateByGroup(double[] actuals, double[] predictions, float[] actualsF,
+                                                  float[] predictionsF, byte[] groups, int groupCount, int n) {
+        Objects.requireNonNull(groups, "Groups array must not be null.");
+        if (n > groups.length) throw new IllegalArgumentException("Count exceeds the length of groups.");
+        // Ignored rows get +Inf so they sort after every real error and the median can skip them
+        double[] absErrors = new double[n];
+        GroupPartial p = new GroupTask(actuals, predictions, actualsF, predictionsF, groups, groupCount, absErrors, 0, n).invoke();
+
+        PredictionMetrics[] perGroup = new PredictionMetrics[groupCount];
+        long[] counts = new long[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            Partial part = p.partials[g];
+            if (part == null || part.count == 0) continue;
+            counts[g] = part.count;
+            perGroup[g] = finish(part, p.sketches[g].median());
+        }
+        Partial total = p.total;
+        PredictionMetrics overall = total.count == 0 ? null : finish(total, median(absErrors, n, total.count));
+        return new GroupedMetrics(overall, total.count, perGroup, counts);
+    }
+
+    private static void checkArgs(Object actuals, Object predictions, int n, int actualLength, int predictionLength) {
+        Objects.requireNonNull(actuals, "Actuals array must not be null.");
+        Objects.requireNonNull(predictions, "Predictions array must not be null.");
+        if (n > actualLength || n > predictionLength) {
+            throw new IllegalArgumentException("Count exceeds the length of actuals or predictions.");
+        }
+        if (n <= 0) {
+            throw new IllegalArgumentException("Input lists must not be empty.");
+        }
+    }
+
+    private static PredictionMetrics finish(Partial p, double[] absErrors, int n) {
+        return finish(p, median(absErrors, n));
+    }
+
+    private static PredictionMetrics finish(Partial p, double medianAbsError) {
+        double rmse = Math.sqrt(p.sumSq / p.count);
+        double mae = p.sumAbs / p.count;
+        double mape = p.countNonZeroActual == 0 ? Double.NaN : (p.sumAbsPct / p.countNonZeroActual) * 100.0;
+        double explainedVariance = p.m2Actual == 0 ? 1.0 : 1.0 - (p.m2Residual / p.m2Actual);
+        return new PredictionMetrics(rmse, mae, mape, medianAbsError, explainedVariance);
+    }
+
+    /**
+     * Exact median of values[0 .. n), which must all be non-negative (or NaN); values is not modified.
+     */
+    static double median(double[] values, int n) {
+        return median(values, n, n);
+    }
+
+    // Median of the count smallest values, the remaining n - count being +Inf placeholders
+    private static double median(double[] values, int n, long count) {
+        long lower = (count - 1) / 2;
+        double low = select(values, n, lower);
+        if (count % 2 == 1) return low;
+        return (low + nextAtOrAbove(values, n, low, lower + 1)) / 2.0;
+    }
+
+    /**
+     * The k-th smallest (0-based) of values[0 .. n), found digit by digit from the top of the bit
+     * pattern: each pass histograms, in parallel, the next digit of every value that matches the
+     * prefix chosen so far.
+     */
+    static double select(double[] values, int n, long k) {
+        long prefix = 0;
+        long mask = 0;
+        for (int shift = Long.SIZE - DIGIT_BITS; shift >= 0; shift -= DIGIT_BITS) {
+            long[] histogram = new HistogramTask(values, 0, n, prefix, mask, shift).invoke();
+            int digit = 0;
+            while (k >= histogram[digit]) {
+                k -= histogram[digit];
+                digit++;
+            }
+            prefix |= (long) digit << shift;
+            mask |= (long) (RADIX - 1) << shift;
+        }
+        return Double.longBitsToDouble(prefix);
+    }
+
+    // Value at sorted position rank, given that the value at rank - 1 is previous
+    private static double nextAtOrAbove(double[] values, int n, double previous, long rank) {
+        CountMinTask.Result r = new CountMinTask(values, 0, n, Double.doubleToRawLongBits(previous)).invoke();
+        return r.countAtOrBelow > rank ? previous : Double.longBitsToDouble(r.minAboveBits);
+    }
+
+    /**
+     * Sums and Welford moments for a range of rows.
+     */
+    static final class Partial {
+        long count;
+        double sumSq;
+        double sumAbs;
+        double sumAbsPct;
+        long countNonZeroActual;
+        double meanActual;
+        double m2Actual;
+        double meanResidual;
+        double m2Residual;
+
+        void add(double actual, double predicted) {
+            double err = predicted - actual;
+            double residual = actual - predicted;
+            count++;
+            sumSq += err * err;
+            sumAbs += Math.abs(err);
+            if (actual != 0) {
+                sumAbsPct += Math.abs(err / actual);
+                countNonZeroActual++;
+            }
+            double d = actual - meanActual;
+            meanActual += d / count;
+            m2Actual += d * (actual - meanActual);
+            d = residual - meanResidual;
+            meanResidual += d / count;
+            m2Residual += d * (residual - meanResidual);
+        }
+
+        Partial merge(Partial other) {
+            if (other.count == 0) return this;
+            long n = count + other.count;
+            double delta = other.meanActual - meanActual;
+            m2Actual += other.m2Actual + delta * delta * count * other.count / n;
+            meanActual += delta * other.count / n;
+            delta = other.meanResidual - meanResidual;
+            m2Residual += other.m2Residual + delta * delta * count * other.count / n;
+            meanResidual += delta * other.count / n;
+            count = n;
+            sumSq += other.sumSq;
+            sumAbs += other.sumAbs;
+            sumAbsPct += other.sumAbsPct;
+            countNonZeroActual += other.countNonZeroActual;
+            return this;
+        }
+    }
+
+    private static final class ReduceTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] actuals;
+        private final double[] predictions;
+        private final float[] actualsF;
+        private final float[] predictionsF;
+        private final double[] absErrors;
+        private final int from;
+        private final int to;
+
+        ReduceTask(double[] actuals, double[] predictions, float[] actualsF, float[] predictionsF,
+                   double[] absErrors, int from, int to) {
+            this.actuals = actuals;
+            this.predictions = predictions;
+            this.actualsF = actualsF;
+            this.predictionsF = predictionsF;
+            this.absErrors = absErrors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= GRAIN) {
+                Partial p = new Partial();
+                if (actuals != null) {
+                    for (int i = from; i < to; i++) {
+                        p.add(actuals[i], predictions[i]);
+                        absErrors[i] = Math.abs(predictions[i] - actuals[i]);
+                    }
+                } else {
+                    for (int i = from; i < to; i++) {
+                        double actual = actualsF[i];
+                        double predicted = predictionsF[i];
+                        p.add(actual, predicted);
+                        absErrors[i] = Math.abs(predicted - actual);
+                    }
+                }
+                return p;
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask left = new ReduceTask(actuals, predictions, actualsF, predictionsF, absErrors, from, mid);
+            left.fork();
+            Partial right = new ReduceTask(actuals, predictions, actualsF, predictionsF, absErrors, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private static final class GroupPartial {
+        final Partial total = new Partial();
+        final Partial[] partials;
+        final QuantileSketch[] sketches;
+
+        GroupPartial(int groupCount) {
+            partials = new Partial[groupCount];
+            sketches = new QuantileSketch[groupCount];
+        }
+
+        GroupPartial merge(GroupPartial other) {
+            total.merge(other.total);
+            for (int g = 0; g < partials.length; g++) {
+                if (other.partials[g] == null) continue;
+                if (partials[g] == null) {
+                    partials[g] = other.partials[g];
+                    sketches[g] = other.sketches[g];
+                } else {
+                    partials[g].merge(other.partials[g]);
+                    sketches[g].merge(other.sketches[g]);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static final class GroupTask extends RecursiveTask<GroupPartial> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] actuals;
+        private final double[] predictions;
+        private final float[] actualsF;
+        private final float[] predictionsF;
+        private final byte[] groups;
+        private final int groupCount;
+        private final double[] absErrors;
+        private final int from;
+        private final int to;
+
+        GroupTask(double[] actuals, double[] predictions, float[] actualsF, float[] predictionsF, byte[] groups,
+                  int groupCount, double[] absErrors, int from, int to) {
+            this.actuals = actuals;
+            this.predictions = predictions;
+            this.actualsF = actualsF;
+            this.predictionsF = predictionsF;
+            this.groups = groups;
+            this.groupCount = groupCount;
+            this.absErrors = absErrors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GroupPartial compute() {
+            if (to - from <= GRAIN) {
+                GroupPartial p = new GroupPartial(groupCount);
+                for (int i = from; i < to; i++) {
+                    double actual = actuals != null ? actuals[i] : actualsF[i];
+                    double predicted = predictions != null ? predictions[i] : predictionsF[i];
+                    if (!Double.isFinite(actual) || !Double.isFinite(predicted)) {
+                        absErrors[i] = Double.POSITIVE_INFINITY;
+                        continue;
+                    }
+                    double absError = Math.abs(predicted - actual);
+                    absErrors[i] = absError;
+                    p.total.add(actual, predicted);
+                    int g = groups[i];
+                    if (g < 0 || g >= groupCount) continue;
+                    if (p.partials[g] == null) {
+                        p.partials[g] = new Partial();
+                        p.sketches[g] = new QuantileSketch();
+                    }
+                    p.partials[g].add(actual, predicted);
+                    p.sketches[g].add(absError);
+                }
+                return p;
+            }
+            int mid = (from + to) >>> 1;
+            GroupTask left = new GroupTask(actuals, predictions, actualsF, predictionsF, groups, groupCount, absErrors, from, mid);
+            left.fork();
+            GroupPartial right = new GroupTask(actuals, predictions, actualsF, predictionsF, groups, groupCount, absErrors, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private static final class HistogramTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+        private final long prefix;
+        private final long mask;
+        private final int shift;
+
+        HistogramTask(double[] values, int from, int to, long prefix, long mask, int shift) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.prefix = prefix;
+            this.mask = mask;
+            this.shift = shift;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= GRAIN) {
+                long[] histogram = new long[RADIX];
+                for (int i = from; i < to; i++) {
+                    long bits = Double.doubleToRawLongBits(values[i]);
+                    if ((bits & mask) == prefix) histogram[(int) (bits >>> shift) & (RADIX - 1)]++;
+                }
+                return histogram;
+            }
+            int mid = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(values, from, mid, prefix, mask, shift);
+            left.fork();
+            long[] right = new HistogramTask(values, mid, to, prefix, mask, shift).compute();
+            long[] histogram = left.join();
+            for (int d = 0; d < RADIX; d++) histogram[d] += right[d];
+            return histogram;
+        }
+    }
+
+    // Counts values whose bits are <= pivot and finds the smallest bit pattern above it
+    private static final class CountMinTask extends RecursiveTask<CountMinTask.Result> {
+        private static final long serialVersionUID = 1L;
+
+        static final class Result {
+            long countAtOrBelow;
+            long minAboveBits = Long.MAX_VALUE;
+        }
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+        private final long pivot;
+
+        CountMinTask(double[] values, int from, int to, long pivot) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.pivot = pivot;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= GRAIN) {
+                Result r = new Result();
+                for (int i = from; i < to; i++) {
+                    long bits = Double.doubleToRawLongBits(values[i]);
+                    if (bits <= pivot) r.countAtOrBelow++;
+                    else if (bits < r.minAboveBits) r.minAboveBits = bits;
+                }
+                return r;
+            }
+            int mid = (from + to) >>> 1;
+            CountMinTask left = new CountMinTask(values, from, mid, pivot);
+            left.fork();
+            Result right = new CountMinTask(values, mid, to, pivot).compute();
+            Result result = left.join();
+            result.countAtOrBelow += right.countAtOrBelow;
+            result.minAboveBits = Math.min(result.minAboveBits, right.minAboveBits);
+            return result;
+        }
+    }
+}
@@ -4,8 +4,6 @@ import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
@@ -29,35 +27,38 @@ public class MetricsGraphWindow extends Stage {
     private static final AtomicInteger imageCounter = new AtomicInteger(1);
 
     public MetricsGraphWindow(List<RainfallPredictionApp.RainfallData> data) {
-        setTitle("Actual vs Predicted Rainfall");
-
-        NumberAxis xAxis = new NumberAxis();
-        xAxis.setLabel("Sample Index");
-
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Rainfall (mm)");
-
-        LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
-        chart.setTitle("Actual vs Predicted Rainfall");
-
-        XYChart.Series<Number, Number> actualSeries = new XYChart.Series<>();
-        actualSeries.setName("Actual");
-        XYChart.Series<Number, Number> predictedSeries = new XYChart.Series<>();
-        predictedSeries.setName("Predicted");
-
-        int index = 0;
+        double[] actuals = new double[data.size()];
+        double[] predictions = new double[data.size()];
+        int count = 0;
         for (RainfallPredictionApp.RainfallData row : data) {
             Float actual = row.rainfallTarget;
-            String predStr = row.getPrediction();
-            if (actual != null && isNumeric(predStr)) {
-                double predicted = Double.parseDouble(predStr.replaceAll("[^0-9.\\-Ee]", ""));
-                actualSeries.getData().add(new XYChart.Data<>(index, actual));
-                predictedSeries.getData().add(new XYChart.Data<>(index, predicted));
-                index++;
+            float predicted = row.getPredictionValue();
+            if (actual != null && Float.isFinite(predicted)) {
+                actuals[count] = actual;
+                predictions[count] = predicted;
+                count++;
             }
         }
+        build(actuals, predictions, count);
+    }
 
-        chart.getData().addAll(actualSeries, predictedSeries);
+    /**
+     * Plots the rows of the dataset that have both an actual value and a prediction.
+     */
+    public MetricsGraphWindow(RainfallDataset dataset) {
+        double[] actuals = new double[dataset.size()];
+        double[] predictions = new double[dataset.size()];
+        build(actuals, predictions, dataset.collectActualVsPredicted(actuals, predictions));
+    }
+
+    private void build(double[] actuals, double[] predictions, int count) {
+        setTitle("Actual vs Predicted Rainfall");
+
+        // Downsampled to what the window can show; scroll to zoom into the full-resolution data
+        ZoomableLineChart chart = new ZoomableLineChart("Sample Index", "Rainfall (mm)", 0);
+        chart.setTitle("Actual vs Predicted Rainfall");
+        chart.addSeries("Actual", actuals, count);
+        chart.addSeries("Predicted", predictions, count);
 
         Button saveImageBtn = new Button("Save as Image");
         saveImageBtn.setOnAction(e -> saveChartAsImage(chart));
@@ -68,16 +69,6 @@ public class MetricsGraphWindow extends Stage {
         setScene(new Scene(root, 800, 600));
     }
 
-    private boolean isNumeric(String str) {
-        if (str == null) return false;
-        try {
-            Double.parseDouble(str.replaceAll("[^0-9.\\-Ee]", ""));
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
     private void saveChartAsImage(LineChart<Number, Number> chart) {
         WritableImage image = chart.snapshot(new SnapshotParameters(), null);
         FileChooser fileChooser = new FileChooser();
@@ -0,0 +1,252 @@
+package rainfallPrediction;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent single-row predictions into batched inference calls. Callers submit one
+ * raw feature vector and get a future; dispatcher threads take the oldest pending row and keep
+ * collecting until either maxBatchSize rows are waiting or that row has waited maxWaitNanos, then
+ * run them as one [N, FEATURE_SIZE] predictBatch call. Under light load a row waits at most
+ * maxWaitNanos extra; under heavy load batches fill up immediately and per-row inference cost drops.
+ *
+ * Futures complete on a dispatcher thread, so callers should not block inside their callbacks
+ * (use the *Async variants for heavy work).
+ * Queue depth, batch sizes and queue wait are published through the getters and as an MXBean
+ * named rainfallPrediction:type=MicroBatchScheduler,name=&lt;name&gt;.
+ */
+public class MicroBatchScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final long DEFAULT_MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    public static final int DEFAULT_MAX_QUEUED = 100_000;
+
+    private static final int FEATURE_SIZE = RainfallModelService.FEATURE_SIZE;
+
+    /**
+     * JMX view of the scheduler. Waits are from submit() to the start of the batch's inference.
+     */
+    public interface StatsMXBean {
+        int getQueueDepth();
+        long getSubmitted();
+        long getRejected();
+        long getBatches();
+        double getMeanBatchSize();
+        long getBatchSizeP50();
+        long getBatchSizeP99();
+        long getMaxBatchSize();
+        double getWaitP50Micros();
+        double getWaitP99Micros();
+        double getWaitMaxMicros();
+    }
+
+    private static final class Request {
+        final float[] features;
+        final CompletableFuture<Float> future = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        Request(float[] features) {
+            this.features = features;
+        }
+    }
+
+    private final RainfallModelService service;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue;
+    private final Thread[] dispatchers;
+    private final ObjectName mbeanName;
+    private volatile boolean closed;
+
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public MicroBatchScheduler(RainfallModelService service) {
+        this(service, "default", DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_NANOS, 1, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * @param name         used in the dispatcher thread and MXBean names
+     * @param maxBatchSize rows per inference call
+     * @param maxWaitNanos longest a row waits for others to join its batch
+     * @param dispatchers  batches run concurrently (e.g. the service's parallelism)
+     * @param maxQueued    pending rows beyond which submit() rejects
+     */
+    public MicroBatchScheduler(RainfallModelService service, String name, int maxBatchSize, long maxWaitNanos,
+                               int dispatchers, int maxQueued) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Max batch size must be at least 1, got " + maxBatchSize);
+        if (maxWaitNanos < 0) throw new IllegalArgumentException("Max wait must not be negative, got " + maxWaitNanos);
+        if (dispatchers < 1) throw new IllegalArgumentException("Dispatchers must be at least 1, got " + dispatchers);
+        if (maxQueued < 1) throw new IllegalArgumentException("Max queued must be at least 1, got " + maxQueued);
+        this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWaitNanos;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.dispatchers = new Thread[dispatchers];
+        for (int i = 0; i < dispatchers; i++) {
+            Thread t = new Thread(this::dispatchLoop, "rainfall-microbatch-" + name + "-" + i);
+            t.setDaemon(true);
+            this.dispatchers[i] = t;
+            t.start();
+        }
+        this.mbeanName = registerMBean(name);
+    }
+
+    /**
+     * Queues one raw feature vector (copied) for prediction.
+     *
+     * @return completes with the prediction in mm (NaN for non-finite input), or exceptionally if
+     *         inference fails, the queue is full or the scheduler is closed
+     */
+    public CompletableFuture<Float> submit(float[] features) {
+        if (features == null || features.length != FEATURE_SIZE) {
+            throw new IllegalArgumentException("Feature vector must be of size " + FEATURE_SIZE);
+        }
+        Request request = new Request(features.clone());
+        if (closed) {
+            request.future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+        } else if (!queue.offer(request)) {
+            rejected.increment();
+            request.future.completeExceptionally(new RejectedExecutionException(
+                    "Prediction queue is full (" + queue.size() + " pending)"));
+        } else {
+            submitted.increment();
+            // close() may have drained the queue just before this row went in
+            if (closed && queue.remove(request)) {
+                request.future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+            }
+        }
+        return request.future;
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        float[] features = new float[maxBatchSize * FEATURE_SIZE];
+        while (!closed) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxWaitNanos;
+                // Take whatever is already queued, then wait for more until the oldest row's deadline
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                run(batch, features);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // close(): rows collected so far won't run
+                for (Request r : batch) {
+                    r.future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+                }
+                break;
+            }
+        }
+    }
+
+    private void run(List<Request> batch, float[] features) {
+        int n = batch.size();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            Request r = batch.get(i);
+            System.arraycopy(r.features, 0, features, i * FEATURE_SIZE, FEATURE_SIZE);
+            waits.record(start - r.enqueuedNanos);
+        }
+        batchSizes.record(n);
+        try {
+            float[] predictions = service.predictBatch(features, n);
+            for (int i = 0; i < n; i++) batch.get(i).future.complete(predictions[i]);
+        } catch (Exception e) {
+            for (Request r : batch) r.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops the dispatchers; rows still queued complete exceptionally.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread t : dispatchers) t.interrupt();
+        for (Thread t : dispatchers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Request r;
+        while ((r = queue.poll()) != null) {
+            r.future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+        }
+        if (mbeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (Exception ignored) {
+                // Already gone
+            }
+        }
+    }
+
+    private ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("rainfallPrediction:type=MicroBatchScheduler,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) return null;
+            server.registerMBean(new StandardMBean(new Stats(), StatsMXBean.class, true), objectName);
+            return objectName;
+        } catch (Exception e) {
+            System.err.println("MicroBatchScheduler: could not register MBean for " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int getMaxBatchSize() { return maxBatchSize; }
+    public long getMaxWaitNanos() { return maxWaitNanos; }
+    public int getQueueDepth() { return queue.size(); }
+    public long getSubmitted() { return submitted.sum(); }
+    public long getRejected() { return rejected.sum(); }
+
+    /**
+     * Rows per inference call.
+     */
+    public LatencyHistogram getBatchSizes() { return batchSizes; }
+
+    /**
+     * Nanoseconds from submit() to the start of the row's inference.
+     */
+    public LatencyHistogram getWaits() { return waits; }
+
+    private final class Stats implements StatsMXBean {
+        @Override public int getQueueDepth() { return queue.size(); }
+        @Override public long getSubmitted() { return submitted.sum(); }
+        @Override public long getRejected() { return rejected.sum(); }
+        @Override public long getBatches() { return batchSizes.getCount(); }
+        @Override public double getMeanBatchSize() { return batchSizes.getMean(); }
+        @Override public long getBatchSizeP50() { return batchSizes.getPercentile(0.50); }
+        @Override public long getBatchSizeP99() { return batchSizes.getPercentile(0.99); }
+        @Override public long getMaxBatchSize() { return batchSizes.getMax(); }
+        @Override public double getWaitP50Micros() { return waits.getPercentile(0.50) / 1e3; }
+        @Override public double getWaitP99Micros() { return waits.getPercentile(0.99) / 1e3; }
+        @Override public double getWaitMaxMicros() { return waits.getMax() / 1e3; }
+    }
+}
@@ -0,0 +1,276 @@
+package rainfallPrediction;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A model together with the preprocessing it was trained with: scaler mean and scale and,
+ * optionally, the feature order, so the model can be moved or shared as one unit.
+ *
+ * A bundle is one of
+ * - a directory holding the model (model.onnx, or its only .onnx file), scaler_mean.csv,
+ *   scaler_scale.csv and optionally feature_order.csv;
+ * - a .zip archive with the same files, at its root or in one folder;
+ * - a model file with those files next to it.
+ * A model file without scaler files next to it falls back to the legacy
+ * RainfallModelService.DEFAULT_SCALER_* paths.
+ *
+ * Parsed scaler parameters are kept in a ScalerSidecar ("scaler.rfsc" next to the CSVs, or
+ * "<archive>.rfsc" next to a zip), and the model from a zip is extracted once per archive version
+ * under java.io.tmpdir, so later starts skip both steps.
+ */
+public class ModelBundle {
+
+    public static final String MODEL_FILE = "model.onnx";
+    public static final String SCALER_MEAN_FILE = "scaler_mean.csv";
+    public static final String SCALER_SCALE_FILE = "scaler_scale.csv";
+    public static final String FEATURE_ORDER_FILE = "feature_order.csv";
+    public static final String SCALER_CACHE_FILE = "scaler" + ScalerSidecar.SUFFIX;
+
+    private static final String[] NUMERIC_FEATURES = {"height", "minMeanTemp", "maxMeanTemp", "meanRelHum"};
+
+    private final File source;
+    private final boolean archive;
+    // For directory and file bundles; null for archives
+    private final File modelFile;
+    private final File scalerMean;
+    private final File scalerScale;
+    private final File featureOrder;
+
+    private ModelBundle(File source, boolean archive, File modelFile, File scalerMean, File scalerScale, File featureOrder) {
+        this.source = source;
+        this.archive = archive;
+        this.modelFile = modelFile;
+        this.scalerMean = scalerMean;
+        this.scalerScale = scalerScale;
+        this.featureOrder = featureOrder;
+    }
+
+    /**
+     * Bundle for a chosen path: a bundle directory, a .zip archive, or a model file (with the
+     * bundle files next to it if present, otherwise the legacy scaler paths).
+     * Nothing is read yet; missing pieces are reported when the bundle is loaded.
+     */
+    public static ModelBundle resolve(File path) {
+        if (path.isDirectory()) {
+            return new ModelBundle(path, false, findModel(path),
+                    new File(path, SCALER_MEAN_FILE), new File(path, SCALER_SCALE_FILE), existing(new File(path, FEATURE_ORDER_FILE)));
+        }
+        if (path.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return new ModelBundle(path, true, null, null, null, null);
+        }
+        File dir = path.getAbsoluteFile().getParentFile();
+        File mean = new File(dir, SCALER_MEAN_FILE);
+        File scale = new File(dir, SCALER_SCALE_FILE);
+        if (mean.isFile() && scale.isFile()) {
+            return new ModelBundle(path, false, path, mean, scale, existing(new File(dir, FEATURE_ORDER_FILE)));
+        }
+        return of(path, RainfallModelService.DEFAULT_SCALER_MEAN_PATH, RainfallModelService.DEFAULT_SCALER_SCALE_PATH);
+    }
+
+    /**
+     * Bundle from explicitly named files, without a feature order check.
+     */
+    public static ModelBundle of(File modelFile, String scalerMeanPath, String scalerScalePath) {
+        return new ModelBundle(modelFile, false, modelFile, new File(scalerMeanPath), new File(scalerScalePath), null);
+    }
+
+    private static File existing(File file) {
+        return file.isFile() ? file : null;
+    }
+
+    // model.onnx, else the only .onnx file; null (reported by modelFile()) if there is none
+    private static File findModel(File dir) {
+        File preferred = new File(dir, MODEL_FILE);
+        if (preferred.isFile()) return preferred;
+        File[] models = dir.listFiles((d, name) -> name.toLowerCase(Locale.ROOT).endsWith(".onnx"));
+        return models != null && models.length == 1 ? models[0] : null;
+    }
+
+    public File getSource() {
+        return source;
+    }
+
+    public boolean isArchive() {
+        return archive;
+    }
+
+    /**
+     * The model file to load, extracting it from an archive on first use.
+     */
+    public File modelFile() throws IOException {
+        if (!archive) {
+            if (modelFile == null) {
+                throw new FileNotFoundException("No " + MODEL_FILE + " (or single .onnx file) in bundle " + source);
+            }
+            return modelFile;
+        }
+        try (ZipFile zip = new ZipFile(source)) {
+            ZipEntry entry = findModelEntry(zip);
+            // One extraction per archive version, shared across runs
+            File dir = new File(System.getProperty("java.io.tmpdir"), "rainfall-bundles");
+            File target = new File(dir, stripZip(source.getName()) + "-" + source.length() + "-" + source.lastModified()
+                    + "-" + baseName(entry.getName()));
+            if (target.isFile() && target.length() == entry.getSize()) return target;
+            Files.createDirectories(dir.toPath());
+            Path tmp = Files.createTempFile(dir.toPath(), target.getName(), ".tmp");
+            try {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return target;
+        }
+    }
+
+    private ZipEntry findModelEntry(ZipFile zip) throws IOException {
+        ZipEntry onlyModel = null;
+        int models = 0;
+        for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+            ZipEntry entry = e.nextElement();
+            if (entry.isDirectory()) continue;
+            String name = baseName(entry.getName());
+            if (name.equals(MODEL_FILE)) return entry;
+            if (name.toLowerCase(Locale.ROOT).endsWith(".onnx")) {
+                onlyModel = entry;
+                models++;
+            }
+        }
+        if (models != 1) throw new FileNotFoundException("No " + MODEL_FILE + " (or single .onnx file) in bundle " + source);
+        return onlyModel;
+    }
+
+    /**
+     * Scaler parameters from the binary cache if it is current, otherwise parsed from the CSVs
+     * (and cached for next time).
+     */
+    public ScalerSidecar.Scaler loadScaler() throws Exception {
+        if (archive) return loadArchiveScaler();
+        File cache = new File(scalerMean.getAbsoluteFile().getParentFile(), SCALER_CACHE_FILE);
+        ScalerSidecar.Scaler scaler = ScalerSidecar.read(cache, scalerMean, scalerScale);
+        if (scaler != null) return scaler;
+        scaler = checked(StandardScalerUtil.loadArray(scalerMean.getPath()), StandardScalerUtil.loadArray(scalerScale.getPath()));
+        ScalerSidecar.write(cache, scaler, scalerMean, scalerScale);
+        return scaler;
+    }
+
+    private ScalerSidecar.Scaler loadArchiveScaler() throws Exception {
+        File cache = new File(source.getPath() + ScalerSidecar.SUFFIX);
+        ScalerSidecar.Scaler scaler = ScalerSidecar.read(cache, source);
+        if (scaler != null) return scaler;
+        try (ZipFile zip = new ZipFile(source)) {
+            scaler = checked(parseFloats(readEntry(zip, SCALER_MEAN_FILE, true)),
+                    parseFloats(readEntry(zip, SCALER_SCALE_FILE, true)));
+        }
+        ScalerSidecar.write(cache, scaler, source);
+        return scaler;
+    }
+
+    private static ScalerSidecar.Scaler checked(float[] mean, float[] scale) {
+        if (mean.length != scale.length) {
+            throw new IllegalStateException("Scaler parameter size mismatch: mean=" + mean.length + ", scale=" + scale.length);
+        }
+        return new ScalerSidecar.Scaler(mean, scale, false);
+    }
+
+    /**
+     * Compares the bundle's feature_order.csv, if it has one, with the feature vector the app
+     * builds (FeatureVectorUtil order).
+     *
+     * @throws IllegalStateException if the orders differ
+     */
+    public void checkFeatureOrder() throws IOException {
+        String text;
+        if (archive) {
+            try (ZipFile zip = new ZipFile(source)) {
+                text = readEntry(zip, FEATURE_ORDER_FILE, false);
+            }
+        } else {
+            text = featureOrder == null ? null : new String(Files.readAllBytes(featureOrder.toPath()), StandardCharsets.UTF_8);
+        }
+        if (text == null) return;
+
+        List<String> expected = expectedFeatureOrder();
+        List<String> actual = new ArrayList<>();
+        for (String line : text.split("\r?\n")) {
+            for (String part : line.split(",")) {
+                String name = part.trim();
+                if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) name = name.substring(1, name.length() - 1);
+                if (!name.isEmpty()) actual.add(name);
+            }
+        }
+        // Allow a header line such as "feature" above the names
+        if (actual.size() == expected.size() + 1 && !actual.get(0).equals(expected.get(0))) actual.remove(0);
+        if (!actual.equals(expected)) {
+            throw new IllegalStateException("Feature order in " + FEATURE_ORDER_FILE + " does not match the app's feature vector."
+                    + "\nExpected: " + expected + "\nBundle:   " + actual);
+        }
+    }
+
+    /**
+     * Feature names in the order the app builds feature vectors: the numeric columns, then one
+     * state_<name> column per state.
+     */
+    public static List<String> expectedFeatureOrder() {
+        List<String> names = new ArrayList<>(FeatureVectorUtil.FEATURE_SIZE);
+        for (String n : NUMERIC_FEATURES) names.add(n);
+        for (int i = 0; i < FeatureVectorUtil.stateCount(); i++) names.add("state_" + FeatureVectorUtil.stateName(i));
+        return names;
+    }
+
+    // Text of the entry with this file name at any depth; null if optional and missing
+    private String readEntry(ZipFile zip, String fileName, boolean required) throws IOException {
+        for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+            ZipEntry entry = e.nextElement();
+            if (!entry.isDirectory() && baseName(entry.getName()).equals(fileName)) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        if (required) throw new FileNotFoundException("No " + fileName + " in bundle " + source);
+        return null;
+    }
+
+    // Same format as StandardScalerUtil.loadArray: values separated by commas and/or newlines
+    private static float[] parseFloats(String text) {
+        List<String> parts = new ArrayList<>();
+        for (String line : text.split("\r?\n")) {
+            for (String part : line.split(",")) {
+                String trimmed = part.trim();
+                if (!trimmed.isEmpty()) parts.add(trimmed);
+            }
+        }
+        float[] values = new float[parts.size()];
+        for (int i = 0; i < values.length; i++) values[i] = Float.parseFloat(parts.get(i));
+        return values;
+    }
+
+    private static String baseName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static String stripZip(String name) {
+        return name.toLowerCase(Locale.ROOT).endsWith(".zip") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    @Override
+    public String toString() {
+        return source.getPath();
+    }
+}
@@ -0,0 +1,97 @@
+package rainfallPrediction;
+
+import ai.djl.ndarray.NDList;
+import ai.djl.repository.zoo.ZooModel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One loaded model together with its predictor pool and scaler, as served by RainfallModelService.
+ * Every prediction holds a reference for as long as it runs, and the service holds one more while
+ * the handle is current. After a swap the service drops its reference with retire(); whichever
+ * prediction finishes last then closes the pool and the model, so in-flight requests never see
+ * either closed underneath them.
+ */
+final class ModelHandle {
+
+    final ZooModel<NDList, NDList> model;
+    final PredictorPool pool;
+    final CompiledFeatureTransformer transformer;
+    // Cache key component; predictions from another generation never match
+    final long generation;
+
+    // Starts at 1: the reference owned by the service until retire()
+    private final AtomicInteger refs = new AtomicInteger(1);
+    private final AtomicBoolean retired = new AtomicBoolean();
+    // Cleared when a successor handle takes over the model with a new pool
+    private volatile boolean ownsModel = true;
+
+    ModelHandle(ZooModel<NDList, NDList> model, PredictorPool pool, CompiledFeatureTransformer transformer, long generation) {
+        this.model = model;
+        this.pool = pool;
+        this.transformer = transformer;
+        this.generation = generation;
+    }
+
+    /**
+     * Takes a reference unless the handle has already been closed.
+     *
+     * @return false if the handle is closed and must not be used
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int n = refs.get();
+            if (n == 0) return false;
+            if (refs.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    /**
+     * Takes an extra reference on behalf of work handed to another thread. Only valid while the
+     * caller itself holds one.
+     */
+    void retain() {
+        refs.incrementAndGet();
+    }
+
+    void release() {
+        if (refs.decrementAndGet() == 0) closeResources();
+    }
+
+    /**
+     * Drops the service's reference; resources are closed once the last prediction releases.
+     */
+    void retire() {
+        if (retired.compareAndSet(false, true)) release();
+    }
+
+    boolean isRetired() {
+        return retired.get();
+    }
+
+    /**
+     * Predictions currently holding this handle.
+     */
+    int inFlight() {
+        return Math.max(0, refs.get() - (retired.get() ? 0 : 1));
+    }
+
+    /**
+     * A handle over the same model, scaler and generation but a different pool. The model now
+     * belongs to the new handle; retiring this one closes only its own pool.
+     */
+    ModelHandle withPool(PredictorPool newPool) {
+        ownsModel = false;
+        return new ModelHandle(model, newPool, transformer, generation);
+    }
+
+    private void closeResources() {
+        pool.close();
+        if (ownsModel) {
+            try {
+                model.close();
+            } catch (Exception ignored) {}
+        }
+    }
+}
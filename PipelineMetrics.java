@@ -0,0 +1,149 @@
+package rainfallPrediction;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage counters and latency histograms for the prediction pipeline.
+ * Recording is lock-free; each stage is published as an MXBean named
+ * rainfallPrediction:type=PipelineStage,name=&lt;STAGE&gt; (visible in JConsole / VisualVM).
+ */
+public final class PipelineMetrics {
+
+    public enum Stage {
+        CSV_PARSE,
+        FEATURE_ENCODE,
+        SCALE,
+        INFERENCE,
+        POST_PROCESS,
+        EXPORT
+    }
+
+    /**
+     * JMX view of one stage. Latencies are per recorded call, in microseconds.
+     */
+    public interface StageStatsMXBean {
+        long getCount();
+        long getItems();
+        double getTotalMillis();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP99Micros();
+        double getP999Micros();
+        double getMaxMicros();
+        void reset();
+    }
+
+    public static class StageStats implements StageStatsMXBean {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder items = new LongAdder();
+
+        void record(long nanos, long itemCount) {
+            latency.record(nanos);
+            items.add(itemCount);
+        }
+
+        @Override public long getCount() { return latency.getCount(); }
+        @Override public long getItems() { return items.sum(); }
+        @Override public double getTotalMillis() { return latency.getSum() / 1e6; }
+        @Override public double getMeanMicros() { return latency.getMean() / 1e3; }
+        @Override public double getP50Micros() { return latency.getPercentile(0.50) / 1e3; }
+        @Override public double getP99Micros() { return latency.getPercentile(0.99) / 1e3; }
+        @Override public double getP999Micros() { return latency.getPercentile(0.999) / 1e3; }
+        @Override public double getMaxMicros() { return latency.getMax() / 1e3; }
+
+        @Override
+        public void reset() {
+            latency.reset();
+            items.reset();
+        }
+    }
+
+    private static final Map<Stage, StageStats> STAGES = new EnumMap<>(Stage.class);
+    private static ScheduledExecutorService summaryExecutor;
+    private static ScheduledFuture<?> summaryTask;
+
+    static {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Stage stage : Stage.values()) {
+            StageStats stats = new StageStats();
+            STAGES.put(stage, stats);
+            try {
+                ObjectName name = new ObjectName("rainfallPrediction:type=PipelineStage,name=" + stage.name());
+                if (!server.isRegistered(name)) server.registerMBean(stats, name);
+            } catch (Exception e) {
+                System.err.println("PipelineMetrics: could not register MBean for " + stage + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private PipelineMetrics() {}
+
+    /**
+     * Records one call of a stage that took nanos and processed itemCount rows.
+     */
+    public static void record(Stage stage, long nanos, long itemCount) {
+        STAGES.get(stage).record(nanos, itemCount);
+    }
+
+    /**
+     * Records a call that started at startNanos (from System.nanoTime()) and ends now.
+     */
+    public static void recordSince(Stage stage, long startNanos, long itemCount) {
+        STAGES.get(stage).record(System.nanoTime() - startNanos, itemCount);
+    }
+
+    public static StageStats stats(Stage stage) {
+        return STAGES.get(stage);
+    }
+
+    public static void resetAll() {
+        for (StageStats stats : STAGES.values()) stats.reset();
+    }
+
+    /**
+     * One line per stage that has recorded anything.
+     */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder("Pipeline stage summary:");
+        for (Map.Entry<Stage, StageStats> e : STAGES.entrySet()) {
+            StageStats s = e.getValue();
+            if (s.getCount() == 0) continue;
+            sb.append(String.format("%n  %-14s calls=%d items=%d total=%.1f ms p50=%.1f us p99=%.1f us p999=%.1f us max=%.1f us",
+                    e.getKey(), s.getCount(), s.getItems(), s.getTotalMillis(),
+                    s.getP50Micros(), s.getP99Micros(), s.getP999Micros(), s.getMaxMicros()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints summary() every periodSeconds on a daemon thread until stopSummaryLog().
+     */
+    public static synchronized void startSummaryLog(long periodSeconds) {
+        stopSummaryLog();
+        if (summaryExecutor == null) {
+            summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread t = new Thread(runnable, "rainfall-metrics-summary");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        summaryTask = summaryExecutor.scheduleAtFixedRate(
+                () -> System.out.println(summary()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopSummaryLog() {
+        if (summaryTask != null) {
+            summaryTask.cancel(false);
+            summaryTask = null;
+        }
+    }
+}
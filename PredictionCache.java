@@ -0,0 +1,176 @@
+package rainfallPrediction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of predictions keyed on the quantized raw feature vector plus the
+ * generation of the model that produced them.
+ * A key packs the 4 numeric features (rounded to a multiple of quantum) and the state ordinal
+ * into three longs, so station data that repeats the same readings skips inference.
+ * Entries are spread over SEGMENTS independently locked LRU maps so parallel workers rarely contend.
+ */
+public class PredictionCache {
+
+    // Finer than the one-decimal precision of the station readings
+    public static final float DEFAULT_QUANTUM = 0.001f;
+
+    private static final int SEGMENT_BITS = 4;
+    // Also the smallest allowed cache size: one entry per segment
+    public static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final int maxEntries;
+    private final float quantum;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PredictionCache(int maxEntries) {
+        this(maxEntries, DEFAULT_QUANTUM);
+    }
+
+    /**
+     * @param maxEntries upper bound on cached predictions
+     * @param quantum    numeric features are rounded to multiples of this; 0 keys on exact float bits
+     */
+    public PredictionCache(int maxEntries, float quantum) {
+        if (maxEntries < SEGMENTS)
+            throw new IllegalArgumentException("Cache size must be at least " + SEGMENTS + ", got " + maxEntries);
+        if (!(quantum >= 0f) || Float.isInfinite(quantum))
+            throw new IllegalArgumentException("Quantum must be a finite value >= 0, got " + quantum);
+        this.maxEntries = maxEntries;
+        this.quantum = quantum;
+        int perSegment = (maxEntries + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+    }
+
+    /**
+     * Builds the cache key for the raw feature vector at raw[offset ..], or null if the row
+     * cannot be cached (non-finite values, out-of-range values, or a state block that is not one-hot).
+     */
+    public Key keyOf(float[] raw, int offset, long modelGeneration) {
+        int ordinal = CompiledFeatureTransformer.oneHotOrdinal(raw, offset);
+        if (ordinal == CompiledFeatureTransformer.NOT_ONE_HOT) return null;
+        long q0 = quantize(raw[offset]);
+        long q1 = quantize(raw[offset + 1]);
+        long q2 = quantize(raw[offset + 2]);
+        long q3 = quantize(raw[offset + 3]);
+        if (q0 == Long.MIN_VALUE || q1 == Long.MIN_VALUE || q2 == Long.MIN_VALUE || q3 == Long.MIN_VALUE) return null;
+        return new Key(
+            (q0 << 32) | (q1 & 0xFFFFFFFFL),
+            (q2 << 32) | (q3 & 0xFFFFFFFFL),
+            (modelGeneration << 8) | (ordinal + 1)
+        );
+    }
+
+    // Long.MIN_VALUE marks a value that does not fit a 32-bit key slot
+    private long quantize(float value) {
+        if (!Float.isFinite(value)) return Long.MIN_VALUE;
+        if (quantum == 0f) return Float.floatToIntBits(value == 0f ? 0f : value);
+        double q = Math.rint(value / (double) quantum);
+        if (q < Integer.MIN_VALUE || q > Integer.MAX_VALUE) return Long.MIN_VALUE;
+        return (int) q;
+    }
+
+    /**
+     * Cached prediction for the key, or null on a miss. Counts a hit or a miss.
+     */
+    public Float get(Key key) {
+        Float value = segmentFor(key).get(key);
+        if (value != null) hits.increment();
+        else misses.increment();
+        return value;
+    }
+
+    public void put(Key key, float prediction) {
+        segmentFor(key).put(key, prediction);
+    }
+
+    /**
+     * Drops every entry, e.g. when the model is replaced. Counters are kept.
+     */
+    public void invalidate() {
+        for (Segment segment : segments) segment.clear();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    public int getMaxEntries() { return maxEntries; }
+    public float getQuantum() { return quantum; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PredictionCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                size(), maxEntries, getHits(), getMisses(), getHitRate() * 100.0, getEvictions());
+    }
+
+    private Segment segmentFor(Key key) {
+        // High bits pick the segment; the segment maps use the low bits
+        return segments[key.hashCode() >>> (32 - SEGMENT_BITS)];
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<Key, Float> map;
+
+        Segment(int capacity) {
+            map = new LinkedHashMap<Key, Float>(Math.min(capacity, 1024), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Float> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Float get(Key key) { return map.get(key); }
+        synchronized void put(Key key, float value) { map.put(key, value); }
+        synchronized void clear() { map.clear(); }
+        synchronized int size() { return map.size(); }
+    }
+
+    public static final class Key {
+        private final long numericsA;
+        private final long numericsB;
+        private final long stateAndModel;
+
+        Key(long numericsA, long numericsB, long stateAndModel) {
+            this.numericsA = numericsA;
+            this.numericsB = numericsB;
+            this.stateAndModel = stateAndModel;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return numericsA == k.numericsA && numericsB == k.numericsB && stateAndModel == k.stateAndModel;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = numericsA * 0x9E3779B97F4A7C15L;
+            h = (h ^ numericsB) * 0x9E3779B97F4A7C15L;
+            h = (h ^ stateAndModel) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
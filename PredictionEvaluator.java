@@ -1,6 +1,5 @@
 package rainfallPrediction;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -28,7 +27,8 @@ public class PredictionEvaluator {
     }
 
     /**
-     * Computes regression metrics between two lists of values.
+     * Computes regression metrics between two lists of values, with the same formulas as
+     * PredictionMetrics (see MetricsEngine).
      * @param actuals List of actual values.
      * @param predictions List of predicted values.
      * @return Metrics object containing RMSE, MAE, MAPE, Median Abs Error, and Explained Variance.
@@ -45,67 +45,13 @@ public class PredictionEvaluator {
         }
 
         int n = actuals.size();
-        double sumSq = 0.0;
-        double sumAbs = 0.0;
-        double sumActual = 0.0;
-        double sumPred = 0.0;
-        double meanActual = 0.0;
-        double sumAbsPct = 0.0;
-        double explainedVarNumer = 0.0;
-        double explainedVarDenom = 0.0;
-
-        // Prepare for median absolute error calculation
-        double[] absErrors = new double[n];
-
-        // Calculate means
-        for (double act : actuals) {
-            sumActual += act;
-        }
-        meanActual = sumActual / n;
-
-        // Calculate all metrics
+        double[] actualArray = new double[n];
+        double[] predictionArray = new double[n];
         for (int i = 0; i < n; i++) {
-            double actual = actuals.get(i);
-            double pred = predictions.get(i);
-            double err = pred - actual;
-
-            sumSq += err * err;
-            sumAbs += Math.abs(err);
-            absErrors[i] = Math.abs(err);
-            if (actual != 0) {
-                sumAbsPct += Math.abs(err / actual);
-            }
-            sumPred += pred;
-
-            explainedVarNumer += (pred - meanActual) * (pred - meanActual);
-            explainedVarDenom += (actual - meanActual) * (actual - meanActual);
-        }
-
-        // RMSE
-        double rmse = Math.sqrt(sumSq / n);
-        // MAE
-        double mae = sumAbs / n;
-        // MAPE (as percentage)
-        double mape = (sumAbsPct / n) * 100.0;
-        // Median Absolute Error
-        double medianAbsError = median(absErrors);
-        // Explained Variance
-        double explainedVariance = (explainedVarDenom == 0) ? 1.0 : explainedVarNumer / explainedVarDenom;
-
-        return new Metrics(rmse, mae, mape, medianAbsError, explainedVariance);
-    }
-
-    /**
-     * Helper method to compute the median of an array.
-     */
-    private static double median(double[] arr) {
-        double[] copy = arr.clone();
-        java.util.Arrays.sort(copy);
-        int n = copy.length;
-        if (n % 2 == 1) {
-            return copy[n / 2];
-        } else {
-            return (copy[(n / 2) - 1] + copy[n / 2]) / 2.0;
+            actualArray[i] = actuals.get(i);
+            predictionArray[i] = predictions.get(i);
         }
+        PredictionMetrics m = MetricsEngine.evaluate(actualArray, predictionArray, n);
+        return new Metrics(m.rmse, m.mae, m.mape, m.medianAbsError, m.explainedVariance);
     }
 }
\ No newline at end of file
@@ -4,8 +4,6 @@ import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
@@ -25,30 +23,35 @@ public class PredictionGraphWindow extends Stage {
     private static final AtomicInteger imageCounter = new AtomicInteger(1);
 
     public PredictionGraphWindow(List<RainfallPredictionApp.RainfallData> data) {
-        setTitle("Predicted Rainfall");
+        double[] predictions = new double[data.size()];
+        int count = 0;
+        for (RainfallPredictionApp.RainfallData row : data) {
+            float predicted = row.getPredictionValue();
+            if (Float.isFinite(predicted)) predictions[count++] = predicted;
+        }
+        build(predictions, count);
+    }
 
-        final NumberAxis xAxis = new NumberAxis();
-        xAxis.setLabel("Sample Index");
+    /**
+     * Plots every finite prediction of the dataset.
+     */
+    public PredictionGraphWindow(RainfallDataset dataset) {
+        double[] predictions = new double[dataset.size()];
+        int count = 0;
+        for (int i = 0; i < dataset.size(); i++) {
+            float predicted = dataset.getPrediction(i);
+            if (Float.isFinite(predicted)) predictions[count++] = predicted;
+        }
+        build(predictions, count);
+    }
 
-        final NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Predicted Rainfall (mm)");
+    private void build(double[] predictions, int count) {
+        setTitle("Predicted Rainfall");
 
-        LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
+        // index counts valid predictions only; scroll to zoom into the full-resolution data
+        ZoomableLineChart chart = new ZoomableLineChart("Sample Index", "Predicted Rainfall (mm)", 0);
         chart.setTitle("Predicted Rainfall per Sample");
-
-        XYChart.Series<Number, Number> predictedSeries = new XYChart.Series<>();
-        predictedSeries.setName("Predicted Rainfall");
-
-        int index = 0;
-        for (RainfallPredictionApp.RainfallData row : data) {
-            if (isNumeric(row.getPrediction())) {
-                double predicted = Double.parseDouble(row.getPrediction().replaceAll("[^0-9.\\-Ee]", ""));
-                predictedSeries.getData().add(new XYChart.Data<>(index, predicted));
-                index++; // increment only for valid predictions
-            }
-        }
-
-        chart.getData().add(predictedSeries);
+        chart.addSeries("Predicted Rainfall", predictions, count);
 
         Button saveImageBtn = new Button("Save as Image");
         saveImageBtn.setOnAction(e -> saveChartAsImage(chart));
@@ -57,16 +60,6 @@ public class PredictionGraphWindow extends Stage {
         setScene(new Scene(root, 800, 640));
     }
 
-    private boolean isNumeric(String str) {
-        if (str == null) return false;
-        try {
-            Double.parseDouble(str.replaceAll("[^0-9.\\-Ee]", ""));
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
     private void saveChartAsImage(LineChart<Number, Number> chart) {
         WritableImage image = chart.snapshot(new SnapshotParameters(), null);
         FileChooser fileChooser = new FileChooser();
@@ -1,6 +1,5 @@
 package rainfallPrediction;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -35,87 +34,25 @@ public class PredictionMetrics {
         if (actuals.size() != predictions.size()) {
             throw new IllegalArgumentException("Actuals and predictions must have the same length.");
         }
-        if (actuals.isEmpty()) {
-            throw new IllegalArgumentException("Input lists must not be empty.");
-        }
-
         int n = actuals.size();
-        double sumSq = 0.0;
-        double sumAbs = 0.0;
-        double sumActual = 0.0;
-        double sumAbsPct = 0.0;
-        int countNonZeroActual = 0;
-        double[] absErrors = new double[n];
-        double[] residuals = new double[n];
-
-        // Calculate mean of actuals
-        for (double act : actuals) {
-            sumActual += act;
-        }
-        double meanActual = sumActual / n;
-
-        // Calculate all metrics
+        double[] actualArray = new double[n];
+        double[] predictionArray = new double[n];
         for (int i = 0; i < n; i++) {
-            double actual = actuals.get(i);
-            double pred = predictions.get(i);
-            double err = pred - actual;
-
-            sumSq += err * err;
-            sumAbs += Math.abs(err);
-            absErrors[i] = Math.abs(err);
-            residuals[i] = actual - pred;
-            if (actual != 0) {
-                sumAbsPct += Math.abs(err / actual);
-                countNonZeroActual++;
-            }
+            actualArray[i] = actuals.get(i);
+            predictionArray[i] = predictions.get(i);
         }
-
-        // RMSE
-        double rmse = Math.sqrt(sumSq / n);
-        // MAE
-        double mae = sumAbs / n;
-        // MAPE (as percentage, divide by count of non-zero actuals)
-        double mape = (countNonZeroActual == 0) ? Double.NaN : (sumAbsPct / countNonZeroActual) * 100.0;
-        // Median Absolute Error
-        double medianAbsError = median(absErrors);
-
-        // Explained Variance: 1 - Var{residuals} / Var{actuals}
-        double varActual = variance(actuals, meanActual);
-        double varResidual = variance(residuals, mean(residuals));
-        double explainedVariance = (varActual == 0) ? 1.0 : 1.0 - (varResidual / varActual);
-
-        return new PredictionMetrics(rmse, mae, mape, medianAbsError, explainedVariance);
-    }
-
-    private static double mean(double[] arr) {
-        double sum = 0.0;
-        for (double v : arr) sum += v;
-        return sum / arr.length;
-    }
-
-    private static double variance(List<Double> values, double mean) {
-        double sum = 0.0;
-        for (double v : values) sum += (v - mean) * (v - mean);
-        return sum / values.size();
-    }
-
-    private static double variance(double[] arr, double mean) {
-        double sum = 0.0;
-        for (double v : arr) sum += (v - mean) * (v - mean);
-        return sum / arr.length;
+        return evaluate(actualArray, predictionArray, n);
     }
 
     /**
-     * Helper method to compute the median of an array.
+     * Computes regression metrics over the first n entries of two arrays (see MetricsEngine).
+     * @throws IllegalArgumentException if n is zero or exceeds either array.
      */
-    private static double median(double[] arr) {
-        double[] copy = arr.clone();
-        java.util.Arrays.sort(copy);
-        int n = copy.length;
-        if (n % 2 == 1) {
-            return copy[n / 2];
-        } else {
-            return (copy[(n / 2) - 1] + copy[n / 2]) / 2.0;
-        }
+    public static PredictionMetrics evaluate(double[] actuals, double[] predictions, int n) {
+        return MetricsEngine.evaluate(actuals, predictions, n);
+    }
+
+    public static PredictionMetrics evaluate(float[] actuals, float[] predictions, int n) {
+        return MetricsEngine.evaluate(actuals, predictions, n);
     }
 }
\ No newline at end of file
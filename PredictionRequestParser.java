@@ -0,0 +1,261 @@
+package rainfallPrediction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns /predict request bodies into raw feature rows for RainfallModelService.predictBatch.
+ * Accepts JSON (one object, or an array of objects, with height, minMeanTemp, maxMeanTemp,
+ * meanRelHum and state) or CSV with a header naming those columns. Rows keep their request
+ * order; a row whose numbers aren't finite is kept and predicts NaN, like predictBatch does.
+ * Malformed input throws IllegalArgumentException with a message meant for the client.
+ */
+final class PredictionRequestParser {
+
+    private static final String[] NUMERIC_FIELDS = {"height", "minMeanTemp", "maxMeanTemp", "meanRelHum"};
+
+    /**
+     * Parsed rows, stored back to back as FEATURE_SIZE floats each.
+     */
+    static final class Rows {
+        final float[] features;
+        final int count;
+        // A single JSON object rather than a list; answered with a single prediction
+        final boolean single;
+
+        Rows(float[] features, int count, boolean single) {
+            this.features = features;
+            this.count = count;
+            this.single = single;
+        }
+    }
+
+    private PredictionRequestParser() {
+    }
+
+    static Rows parseJson(String body, int maxRows) {
+        Object root = new JsonParser(body).parseDocument();
+        if (root instanceof Map) {
+            float[] features = new float[RainfallModelService.FEATURE_SIZE];
+            writeRow((Map<?, ?>) root, 0, features);
+            return new Rows(features, 1, true);
+        }
+        if (!(root instanceof List)) throw new IllegalArgumentException("Expected a JSON object or an array of objects");
+        List<?> list = (List<?>) root;
+        checkRowCount(list.size(), maxRows);
+        float[] features = new float[list.size() * RainfallModelService.FEATURE_SIZE];
+        for (int r = 0; r < list.size(); r++) {
+            if (!(list.get(r) instanceof Map)) throw new IllegalArgumentException("Row " + r + ": expected a JSON object");
+            writeRow((Map<?, ?>) list.get(r), r, features);
+        }
+        return new Rows(features, list.size(), false);
+    }
+
+    private static void writeRow(Map<?, ?> row, int index, float[] dst) {
+        float[] numbers = new float[NUMERIC_FIELDS.length];
+        for (int i = 0; i < NUMERIC_FIELDS.length; i++) {
+            Object value = row.get(NUMERIC_FIELDS[i]);
+            if (value instanceof Double) numbers[i] = ((Double) value).floatValue();
+            else if (value instanceof String) numbers[i] = CsvRowParser.parseSafeFloat((String) value);
+            else throw new IllegalArgumentException("Row " + index + ": '" + NUMERIC_FIELDS[i] + "' must be a number");
+        }
+        Object state = row.get("state");
+        if (!(state instanceof String)) throw new IllegalArgumentException("Row " + index + ": 'state' must be a string");
+        FeatureVectorUtil.writeFeatureVector(dst, index * RainfallModelService.FEATURE_SIZE,
+                numbers[0], numbers[1], numbers[2], numbers[3], FeatureVectorUtil.stateOrdinal(((String) state).trim()));
+    }
+
+    static Rows parseCsv(String body, int maxRows) {
+        String[] lines = body.split("\r?\n");
+        if (lines.length == 0 || lines[0].trim().isEmpty()) throw new IllegalArgumentException("CSV body has no header");
+        List<String> headers = new ArrayList<>();
+        for (String h : lines[0].split(",")) headers.add(h.trim());
+        CsvRowParser.Columns cols = CsvRowParser.resolve(headers);
+        if (!cols.hasRequired()) {
+            throw new IllegalArgumentException("CSV missing one or more required columns (height, minMeanTemp, maxMeanTemp, meanRelHum, state). Headers: " + headers);
+        }
+        float[] features = new float[Math.min(lines.length - 1, maxRows + 1) * RainfallModelService.FEATURE_SIZE];
+        int count = 0;
+        for (int i = 1; i < lines.length; i++) {
+            if (lines[i].trim().isEmpty()) continue;
+            checkRowCount(count + 1, maxRows);
+            String[] values = lines[i].split(",", -1);
+            if (values.length < cols.count) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected " + cols.count + " columns, got " + values.length);
+            }
+            // Non-finite numbers are left in place and predict NaN
+            CsvRowParser.parseFeatures(values, cols, features, count * RainfallModelService.FEATURE_SIZE);
+            count++;
+        }
+        return new Rows(features, count, false);
+    }
+
+    private static void checkRowCount(int rows, int maxRows) {
+        if (rows > maxRows) throw new IllegalArgumentException("Too many rows in one request (limit " + maxRows + ")");
+    }
+
+    /**
+     * Minimal JSON reader: objects become LinkedHashMaps, arrays ArrayLists, numbers Doubles.
+     */
+    private static final class JsonParser {
+        // Request rows are at most two levels deep; the limit keeps hostile input off the stack
+        private static final int MAX_DEPTH = 16;
+
+        private final String text;
+        private int pos;
+        private int depth;
+
+        JsonParser(String text) {
+            this.text = text;
+        }
+
+        Object parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos != text.length()) throw error("Unexpected trailing content");
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{':
+                case '[':
+                    if (++depth > MAX_DEPTH) throw error("Nested too deeply");
+                    Object nested = c == '{' ? parseObject() : parseArray();
+                    depth--;
+                    return nested;
+                case '"': return parseString();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return parseNumber();
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("Expected a field name");
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                map.put(key, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String parseString() {
+            pos++;
+            StringBuilder sb = null;
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String s = sb == null ? text.substring(start, pos) : sb.append(text, start, pos).toString();
+                    pos++;
+                    return s;
+                }
+                if (c == '\\') {
+                    if (sb == null) sb = new StringBuilder();
+                    sb.append(text, start, pos);
+                    if (++pos >= text.length()) break;
+                    char e = text.charAt(pos++);
+                    switch (e) {
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u':
+                            if (pos + 4 > text.length()) throw error("Bad unicode escape");
+                            try {
+                                sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException ex) {
+                                throw error("Bad unicode escape");
+                            }
+                            pos += 4;
+                            break;
+                        default: sb.append(e);
+                    }
+                    start = pos;
+                } else {
+                    pos++;
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Double parseNumber() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Bad number '" + text.substring(start, pos) + "'");
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) throw error("Unexpected token");
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("Expected '" + c + "'");
+            pos++;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at offset " + pos + ": " + message);
+        }
+    }
+}
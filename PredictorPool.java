@@ -0,0 +1,56 @@
+package rainfallPrediction;
+
+import ai.djl.ndarray.NDList;
+import ai.djl.repository.zoo.ZooModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of inference workers over one shared model.
+ * A Predictor is not thread-safe, so each worker is an InferenceArena (its own Predictor plus
+ * reusable buffers) that a thread borrows for the duration of a batch and returns afterwards.
+ */
+public class PredictorPool implements AutoCloseable {
+
+    private final List<InferenceArena> arenas;
+    private final BlockingQueue<InferenceArena> idle;
+
+    public PredictorPool(ZooModel<NDList, NDList> model, int size, int batchSize) {
+        if (size < 1)
+            throw new IllegalArgumentException("Pool size must be at least 1, got " + size);
+        arenas = new ArrayList<>(size);
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            InferenceArena arena = new InferenceArena(model, batchSize);
+            arenas.add(arena);
+            idle.add(arena);
+        }
+    }
+
+    public int size() {
+        return arenas.size();
+    }
+
+    /**
+     * Takes an idle worker, waiting until one is released if all are in use.
+     */
+    public InferenceArena borrow() throws InterruptedException {
+        return idle.take();
+    }
+
+    public void release(InferenceArena arena) {
+        if (arena != null) idle.offer(arena);
+    }
+
+    @Override
+    public void close() {
+        for (InferenceArena arena : arenas) {
+            arena.close();
+        }
+        arenas.clear();
+        idle.clear();
+    }
+}
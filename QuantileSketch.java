@@ -0,0 +1,137 @@
+package rainfallPrediction;
+
+/**
+ * Bounded-memory quantile sketch for non-negative values with relative-error guarantees
+ * (the DDSketch scheme): values fall into logarithmic buckets of ratio gamma = (1 + a) / (1 - a),
+ * so any quantile is returned within a relative error a of the true value. Values below
+ * MIN_INDEXABLE are counted as zero. When more than maxBuckets buckets are in use the lowest ones
+ * are collapsed together, which only affects accuracy for the smallest quantiles.
+ * Sketches with the same accuracy can be merged. Not thread-safe; merge per-thread sketches instead.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.005;
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    // counts[i] holds bucket index (offset + i)
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1))
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1), got " + relativeAccuracy);
+        if (maxBuckets < 16)
+            throw new IllegalArgumentException("At least 16 buckets are required, got " + maxBuckets);
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Adds a value; negative values are treated as their magnitude, NaN is ignored.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        value = Math.abs(value);
+        count++;
+        if (value < MIN_INDEXABLE) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        increment(index, 1);
+    }
+
+    private void increment(int index, long n) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = index - counts.length / 2;
+        }
+        if (index < offset || index >= offset + counts.length) {
+            resize(Math.min(index, offset), Math.max(index, offset + counts.length - 1), index < offset);
+        }
+        // Indices below a collapsed range land in the lowest bucket
+        counts[Math.max(index, offset) - offset] += n;
+    }
+
+    /**
+     * Re-allocates counts to cover [low, high], doubling for headroom on the side that grew.
+     * If that needs more than maxBuckets, only the top maxBuckets are kept and everything below
+     * is collapsed into the lowest one.
+     */
+    private void resize(int low, int high, boolean grewDown) {
+        int needed = high - low + 1;
+        int length = Math.min(maxBuckets, Math.max(needed, counts.length * 2));
+        int newOffset;
+        if (needed >= length) newOffset = high - length + 1;
+        else newOffset = grewDown ? high - length + 1 : low;
+        long[] resized = new long[length];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) resized[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+        }
+        counts = resized;
+        offset = newOffset;
+    }
+
+    /**
+     * Adds every value counted by other into this sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy)
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) increment(other.offset + i, other.counts[i]);
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Estimated q-quantile (0 <= q <= 1), or NaN if the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile must be in [0, 1], got " + q);
+        if (count == 0) return Double.NaN;
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (seen > rank) return 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    public double median() {
+        return quantile(0.5);
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", buckets=" + counts.length + ", relativeAccuracy=" + relativeAccuracy
+                + ", median=" + median() + "}";
+    }
+}
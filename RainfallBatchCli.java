@@ -0,0 +1,192 @@
+package rainfallPrediction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless batch runner: streams one or more input CSVs through the model and writes
+ * one output CSV, without loading any JavaFX classes.
+ *
+ * Usage:
+ *   java -cp ... rainfallPrediction.RainfallBatchCli --model model.onnx|bundle-dir|bundle.zip
+ *        [--scaler-mean scaler_mean.csv --scaler-scale scaler_scale.csv]
+ *        --output predictions.csv [--batch-size N] [--threads N] [--cache N] input.csv [input2.csv ...]
+ * Inputs are streamed in chunks of batch-size * threads rows, so inference starts as soon as the
+ * first chunk is read and memory use does not depend on file size.
+ */
+public class RainfallBatchCli {
+
+    private static final String OUTPUT_HEADER = "height,minMeanTemp,maxMeanTemp,meanRelHum,state,Actual,Prediction";
+
+    private File model;
+    private String scalerMean;
+    private String scalerScale;
+    private File output;
+    private int batchSize = RainfallModelService.DEFAULT_BATCH_SIZE;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int cacheSize = 0;
+    private final List<File> inputs = new ArrayList<>();
+
+    private long rowsWritten = 0;
+    private long rowsSkipped = 0;
+    // Metrics over rows that have an actual value, accumulated chunk by chunk
+    private final StreamingMetricsAccumulator metrics = new StreamingMetricsAccumulator();
+
+    public static void main(String[] args) {
+        RainfallBatchCli cli = new RainfallBatchCli();
+        try {
+            cli.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        try {
+            cli.run();
+        } catch (Exception e) {
+            System.err.println("Batch prediction failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: RainfallBatchCli --model <model.onnx|bundle dir|bundle.zip> "
+                + "[--scaler-mean <scaler_mean.csv> --scaler-scale <scaler_scale.csv>] --output <out.csv> [--batch-size N] [--threads N] [--cache N] "
+                + "<input.csv> [<input.csv> ...]");
+    }
+
+    void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--model": model = new File(value(args, ++i, arg)); break;
+                case "--scaler-mean": scalerMean = value(args, ++i, arg); break;
+                case "--scaler-scale": scalerScale = value(args, ++i, arg); break;
+                case "--output": output = new File(value(args, ++i, arg)); break;
+                case "--batch-size": batchSize = intValue(args, ++i, arg); break;
+                case "--threads": threads = intValue(args, ++i, arg); break;
+                case "--cache": cacheSize = intValue(args, ++i, arg); break;
+                default:
+                    if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option " + arg);
+                    inputs.add(new File(arg));
+            }
+        }
+        if (model == null || output == null) throw new IllegalArgumentException("--model and --output are required");
+        checkScalerArgs(scalerMean, scalerScale);
+        if (inputs.isEmpty()) throw new IllegalArgumentException("At least one input CSV is required");
+    }
+
+    /**
+     * Scaler files are given together, or both left out to use the model's bundle.
+     */
+    static void checkScalerArgs(String scalerMean, String scalerScale) {
+        if ((scalerMean == null) != (scalerScale == null)) {
+            throw new IllegalArgumentException("--scaler-mean and --scaler-scale must be given together");
+        }
+    }
+
+    /**
+     * Loads the model with explicit scaler files, or as a bundle if none were given.
+     */
+    static String loadModel(RainfallModelService service, File model, String scalerMean, String scalerScale) {
+        return scalerMean == null
+                ? service.loadModel(model)
+                : service.loadModel(model, scalerMean, scalerScale);
+    }
+
+    static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+        return args[i];
+    }
+
+    static int intValue(String[] args, int i, String option) {
+        try {
+            return Integer.parseInt(value(args, i, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value for " + option + " must be an integer");
+        }
+    }
+
+    void run() throws Exception {
+        long start = System.nanoTime();
+        RainfallModelService service = new RainfallModelService();
+        try {
+            service.setBatchSize(batchSize);
+            service.setParallelism(threads);
+            if (cacheSize > 0) service.enablePredictionCache(cacheSize);
+            String error = loadModel(service, model, scalerMean, scalerScale);
+            if (error != null) throw new IllegalStateException(error);
+            long loaded = System.nanoTime();
+            System.out.printf("Model loaded in %.1f ms%n", (loaded - start) / 1e6);
+
+            try (FastCsvWriter writer = new FastCsvWriter(output)) {
+                // The header is a fixed, already comma-separated line
+                writer.cell(OUTPUT_HEADER).endRow();
+                for (File input : inputs) {
+                    predictFile(service, input, writer);
+                }
+            }
+
+            long end = System.nanoTime();
+            double inferSeconds = (end - loaded) / 1e9;
+            System.out.printf("Wrote %d predictions to %s (%d invalid rows skipped)%n", rowsWritten, output, rowsSkipped);
+            System.out.printf("Total wall time %.2f s, %.0f rows/sec after model load%n",
+                    (end - start) / 1e9, inferSeconds > 0 ? rowsWritten / inferSeconds : 0.0);
+            if (metrics.getCount() > 0) {
+                System.out.printf("Metrics over %d rows with actuals: RMSE %.4f, MAE %.4f, MAPE %.2f%%, "
+                                + "Median Abs Error ~%.4f, Explained Variance %.4f%n",
+                        metrics.getCount(), metrics.getRmse(), metrics.getMae(), metrics.getMape(),
+                        metrics.getMedianAbsError(), metrics.getExplainedVariance());
+            }
+            if (service.getPredictionCache() != null) System.out.println(service.getPredictionCache());
+        } finally {
+            service.close();
+        }
+    }
+
+    /**
+     * Streams the file through CsvStreamParser, predicting and writing one chunk of rows at a time.
+     */
+    private void predictFile(RainfallModelService service, File input, FastCsvWriter writer) throws Exception {
+        int chunkRows = service.getBatchSize() * service.getParallelism();
+        try {
+            CsvStreamParser.Result stats = CsvStreamParser.parse(input, chunkRows, chunk -> {
+                try {
+                    writeChunk(service, chunk, writer);
+                } catch (Exception e) {
+                    throw new ChunkFailure(e);
+                }
+            });
+            rowsSkipped += stats.skippedRows;
+        } catch (ChunkFailure e) {
+            throw (Exception) e.getCause();
+        } catch (IOException e) {
+            throw new IOException(input + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void writeChunk(RainfallModelService service, RowChunk chunk, FastCsvWriter writer) throws Exception {
+        float[] predictions = service.predictBatch(chunk.features, chunk.size);
+        for (int r = 0; r < chunk.size; r++) {
+            writer.cells(chunk.features, r * RainfallModelService.FEATURE_SIZE, 4, CsvExportUtil.VALUE_DECIMALS)
+                    .cell(chunk.states[r])
+                    .cell(chunk.targets[r], CsvExportUtil.VALUE_DECIMALS)
+                    .cell(predictions[r], CsvExportUtil.PREDICTION_DECIMALS)
+                    .endRow();
+        }
+        if (chunk.hasTarget) metrics.addAll(chunk.targets, predictions, 0, chunk.size);
+        rowsWritten += chunk.size;
+    }
+
+    // Carries a checked exception out of the chunk consumer
+    private static class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkFailure(Exception cause) {
+            super(cause);
+        }
+    }
+}
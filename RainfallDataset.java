@@ -0,0 +1,295 @@
+package rainfallPrediction;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented (struct-of-arrays) store for loaded rows: the four numeric features, the
+ * target and the prediction are float[] columns, and the state is a byte ordinal into
+ * STATE_LIST. That is about 25 bytes per row, against several hundred for a RainfallData
+ * object with its boxed feature list and JavaFX property.
+ * Batch inference and metrics read the contiguous columns directly; the TableView gets
+ * lightweight Row views created on demand.
+ */
+public class RainfallDataset {
+
+    public static final int FEATURE_SIZE = RainfallModelService.FEATURE_SIZE;
+    public static final byte UNKNOWN_STATE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private float[] height = new float[INITIAL_CAPACITY];
+    private float[] minMeanTemp = new float[INITIAL_CAPACITY];
+    private float[] maxMeanTemp = new float[INITIAL_CAPACITY];
+    private float[] meanRelHum = new float[INITIAL_CAPACITY];
+    private byte[] state = new byte[INITIAL_CAPACITY];
+    // NaN where the row has no target
+    private float[] target = new float[INITIAL_CAPACITY];
+    // NaN until a prediction is set
+    private float[] prediction = new float[INITIAL_CAPACITY];
+    private boolean hasTarget;
+    // Original text of states outside STATE_LIST (rare), keyed by row
+    private final Map<Integer, String> unknownStates = new HashMap<>();
+
+    public RainfallDataset() {
+    }
+
+    /**
+     * Wraps existing columns (each at least size long) without copying; used by DatasetSidecar.
+     */
+    RainfallDataset(int size, float[] height, float[] minMeanTemp, float[] maxMeanTemp, float[] meanRelHum,
+                    byte[] state, float[] target, float[] prediction, boolean hasTarget,
+                    Map<Integer, String> unknownStates) {
+        this.size = size;
+        this.height = height;
+        this.minMeanTemp = minMeanTemp;
+        this.maxMeanTemp = maxMeanTemp;
+        this.meanRelHum = meanRelHum;
+        this.state = state;
+        this.target = target;
+        this.prediction = prediction;
+        this.hasTarget = hasTarget;
+        this.unknownStates.putAll(unknownStates);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    /**
+     * Appends one row.
+     *
+     * @param stateOrdinal index into STATE_LIST, or UNKNOWN_STATE
+     * @param stateName    original state text, only kept for unknown states (may be null)
+     * @param rowTarget    actual rainfall, NaN if absent
+     */
+    public void add(float rowHeight, float rowMinMeanTemp, float rowMaxMeanTemp, float rowMeanRelHum,
+                    int stateOrdinal, String stateName, float rowTarget) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        height[i] = rowHeight;
+        minMeanTemp[i] = rowMinMeanTemp;
+        maxMeanTemp[i] = rowMaxMeanTemp;
+        meanRelHum[i] = rowMeanRelHum;
+        state[i] = (byte) (stateOrdinal < 0 ? UNKNOWN_STATE : stateOrdinal);
+        if (stateOrdinal < 0 && stateName != null) unknownStates.put(i, stateName);
+        target[i] = rowTarget;
+        prediction[i] = Float.NaN;
+    }
+
+    /**
+     * Appends every row of a parsed chunk; a numeric Prediction column, if present, is kept.
+     */
+    public void addChunk(RowChunk chunk) {
+        ensureCapacity(size + chunk.size);
+        if (chunk.hasTarget) hasTarget = true;
+        for (int r = 0; r < chunk.size; r++) {
+            int off = r * FEATURE_SIZE;
+            float[] f = chunk.features;
+            int ordinal = CompiledFeatureTransformer.oneHotOrdinal(f, off);
+            add(f[off], f[off + 1], f[off + 2], f[off + 3], ordinal, chunk.states[r], chunk.targets[r]);
+            if (chunk.predictions[r] != null) prediction[size - 1] = CsvRowParser.parseSafeFloat(chunk.predictions[r]);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= height.length) return;
+        int capacity = Math.max(required, height.length + (height.length >> 1));
+        height = Arrays.copyOf(height, capacity);
+        minMeanTemp = Arrays.copyOf(minMeanTemp, capacity);
+        maxMeanTemp = Arrays.copyOf(maxMeanTemp, capacity);
+        meanRelHum = Arrays.copyOf(meanRelHum, capacity);
+        state = Arrays.copyOf(state, capacity);
+        target = Arrays.copyOf(target, capacity);
+        prediction = Arrays.copyOf(prediction, capacity);
+    }
+
+    /**
+     * Releases spare capacity once loading is complete.
+     */
+    public void trimToSize() {
+        if (size == height.length) return;
+        height = Arrays.copyOf(height, size);
+        minMeanTemp = Arrays.copyOf(minMeanTemp, size);
+        maxMeanTemp = Arrays.copyOf(maxMeanTemp, size);
+        meanRelHum = Arrays.copyOf(meanRelHum, size);
+        state = Arrays.copyOf(state, size);
+        target = Arrays.copyOf(target, size);
+        prediction = Arrays.copyOf(prediction, size);
+    }
+
+    public void clear() {
+        size = 0;
+        hasTarget = false;
+        unknownStates.clear();
+    }
+
+    // --- raw columns for DatasetSidecar; valid up to size() ---
+
+    float[] heightColumn() { return height; }
+    float[] minMeanTempColumn() { return minMeanTemp; }
+    float[] maxMeanTempColumn() { return maxMeanTemp; }
+    float[] meanRelHumColumn() { return meanRelHum; }
+    byte[] stateColumn() { return state; }
+    float[] targetColumn() { return target; }
+    float[] predictionColumn() { return prediction; }
+    Map<Integer, String> unknownStates() { return unknownStates; }
+
+    // --- per-row access ---
+
+    public float getHeight(int row) { return height[row]; }
+    public float getMinMeanTemp(int row) { return minMeanTemp[row]; }
+    public float getMaxMeanTemp(int row) { return maxMeanTemp[row]; }
+    public float getMeanRelHum(int row) { return meanRelHum[row]; }
+    public int getStateOrdinal(int row) { return state[row]; }
+    public float getTarget(int row) { return target[row]; }
+    public float getPrediction(int row) { return prediction[row]; }
+
+    public String getStateName(int row) {
+        int ordinal = state[row];
+        if (ordinal >= 0) return FeatureVectorUtil.stateName(ordinal);
+        String name = unknownStates.get(row);
+        return name != null ? name : "Unknown";
+    }
+
+    /**
+     * Value of one of the 17 model features for a row (0-3 numeric, 4-16 one-hot state).
+     */
+    public float getFeature(int row, int feature) {
+        switch (feature) {
+            case 0: return height[row];
+            case 1: return minMeanTemp[row];
+            case 2: return maxMeanTemp[row];
+            case 3: return meanRelHum[row];
+            default: return state[row] == feature - 4 ? 1.0f : 0.0f;
+        }
+    }
+
+    /**
+     * Writes the raw 17-feature vectors of rows [from, from + count) back to back into dst,
+     * ready for RainfallModelService.predictBatch.
+     */
+    public void copyFeatures(int from, int count, float[] dst) {
+        for (int r = 0; r < count; r++) {
+            int i = from + r;
+            FeatureVectorUtil.writeFeatureVector(dst, r * FEATURE_SIZE,
+                    height[i], minMeanTemp[i], maxMeanTemp[i], meanRelHum[i], state[i]);
+        }
+    }
+
+    /**
+     * Stores predictions[0 .. count) for rows [from, from + count).
+     */
+    public void setPredictions(int from, float[] predictions, int count) {
+        setPredictions(from, predictions, 0, count);
+    }
+
+    /**
+     * Stores predictions[offset .. offset + count) for rows [from, from + count).
+     */
+    public void setPredictions(int from, float[] predictions, int offset, int count) {
+        System.arraycopy(predictions, offset, prediction, from, count);
+    }
+
+    public void clearPredictions() {
+        Arrays.fill(prediction, 0, size, Float.NaN);
+    }
+
+    /**
+     * Copies rows that have both a finite target and a finite prediction into the output arrays
+     * (each at least size() long).
+     *
+     * @return number of pairs written
+     */
+    public int collectActualVsPredicted(double[] actualsOut, double[] predictionsOut) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (Float.isFinite(target[i]) && Float.isFinite(prediction[i])) {
+                actualsOut[n] = target[i];
+                predictionsOut[n] = prediction[i];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * RMSE/MAE/MAPE per state (grouped by state ordinal, in STATE_LIST order) and overall, in one
+     * pass over the target and prediction columns. Rows without both values are ignored; rows with
+     * an unknown state only count towards the total.
+     */
+    public GroupedMetrics evaluateByState() {
+        if (size == 0) return new GroupedMetrics(null, 0, new PredictionMetrics[FeatureVectorUtil.stateCount()],
+                new long[FeatureVectorUtil.stateCount()]);
+        return MetricsEngine.evaluateByGroup(target, prediction, state, FeatureVectorUtil.stateCount(), size);
+    }
+
+    /**
+     * Read-only list of row views, created on access, for table display.
+     */
+    public List<Row> rowList() {
+        return new AbstractList<Row>() {
+            @Override
+            public Row get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Row " + index + ", size " + size);
+                return new Row(RainfallDataset.this, index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Lightweight view of one dataset row.
+     */
+    public static final class Row {
+        private final RainfallDataset dataset;
+        public final int index;
+
+        Row(RainfallDataset dataset, int index) {
+            this.dataset = dataset;
+            this.index = index;
+        }
+
+        public float getValue(int feature) {
+            return dataset.getFeature(index, feature);
+        }
+
+        public String getState() {
+            return dataset.getStateName(index);
+        }
+
+        public float getTarget() {
+            return dataset.getTarget(index);
+        }
+
+        public float getPrediction() {
+            return dataset.getPrediction(index);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && ((Row) o).dataset == dataset && ((Row) o).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+    }
+}
@@ -1,14 +1,9 @@
 package rainfallPrediction;
 
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Alert;
 import javafx.scene.image.WritableImage;
 import javafx.stage.FileChooser;
@@ -39,7 +34,7 @@ public class RainfallGraphGenerator {
     public static void chooseAndShowRainfallChart(Stage parentStage, String actualCol, String predictedCol) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select CSV File");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz"));
         File file = fileChooser.showOpenDialog(parentStage);
         if (file != null) {
             showRainfallChartFromCSV(file, actualCol, predictedCol);
@@ -47,11 +42,11 @@ public class RainfallGraphGenerator {
     }
 
     public static void showRainfallChartFromCSV(File csvFile, String actualCol, String predictedCol) {
-        List<String> labels = new ArrayList<>();
-        List<Double> actualValues = new ArrayList<>();
-        List<Double> predictedValues = new ArrayList<>();
+        double[] actualValues = new double[1024];
+        double[] predictedValues = new double[1024];
+        int count = 0;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+        try (BufferedReader reader = CompressedFiles.newReader(csvFile)) {
             String headerLine = reader.readLine();
             if (headerLine == null) throw new IOException("CSV file is empty.");
 
@@ -66,18 +61,20 @@ public class RainfallGraphGenerator {
                 throw new IllegalArgumentException("Could not find specified columns in CSV header.");
 
             String line;
-            int rowNum = 1;
             while ((line = reader.readLine()) != null) {
                 String[] cells = line.split(",");
                 if (cells.length <= Math.max(actualIdx, predictedIdx)) continue;
-                String actualStr = cells[actualIdx];
-                String predictedStr = cells[predictedIdx];
-                if (isNumeric(actualStr) && isNumeric(predictedStr)) {
-                    labels.add(String.valueOf(rowNum));
-                    actualValues.add(Double.parseDouble(actualStr));
-                    predictedValues.add(Double.parseDouble(predictedStr));
+                double actual = CsvRowParser.parseSafeDouble(cells[actualIdx]);
+                double predicted = CsvRowParser.parseSafeDouble(cells[predictedIdx]);
+                if (Double.isFinite(actual) && Double.isFinite(predicted)) {
+                    if (count == actualValues.length) {
+                        actualValues = Arrays.copyOf(actualValues, count * 2);
+                        predictedValues = Arrays.copyOf(predictedValues, count * 2);
+                    }
+                    actualValues[count] = actual;
+                    predictedValues[count] = predicted;
+                    count++;
                 }
-                rowNum++;
             }
         } catch (Exception e) {
             Platform.runLater(() -> {
@@ -86,38 +83,23 @@ public class RainfallGraphGenerator {
             return;
         }
 
-        if (labels.isEmpty()) {
+        if (count == 0) {
             Platform.runLater(() -> showAlert("No Data", "No valid rows found in the CSV."));
             return;
         }
 
-        Platform.runLater(() -> showChartWindow(labels, actualValues, predictedValues));
+        double[] actuals = actualValues;
+        double[] predictions = predictedValues;
+        int rows = count;
+        Platform.runLater(() -> showChartWindow(actuals, predictions, rows));
     }
 
-    private static void showChartWindow(List<String> labels, List<Double> actualValues, List<Double> predictedValues) {
-        CategoryAxis xAxis = new CategoryAxis();
-        xAxis.setLabel("Index");
-        xAxis.setCategories(FXCollections.observableArrayList(labels));
-
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Rainfall (mm)");
-
-        LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
+    private static void showChartWindow(double[] actualValues, double[] predictedValues, int rows) {
+        // Numeric 1-based index instead of one category label per row; series are downsampled
+        ZoomableLineChart lineChart = new ZoomableLineChart("Index", "Rainfall (mm)", 1);
         lineChart.setTitle("Actual vs Predicted Rainfall");
-
-        XYChart.Series<String, Number> actualSeries = new XYChart.Series<>();
-        actualSeries.setName("Actual Rainfall");
-        for (int i = 0; i < labels.size(); i++) {
-            actualSeries.getData().add(new XYChart.Data<>(labels.get(i), actualValues.get(i)));
-        }
-
-        XYChart.Series<String, Number> predictedSeries = new XYChart.Series<>();
-        predictedSeries.setName("Predicted Rainfall");
-        for (int i = 0; i < labels.size(); i++) {
-            predictedSeries.getData().add(new XYChart.Data<>(labels.get(i), predictedValues.get(i)));
-        }
-
-        lineChart.getData().addAll(actualSeries, predictedSeries);
+        lineChart.addSeries("Actual Rainfall", actualValues, rows);
+        lineChart.addSeries("Predicted Rainfall", predictedValues, rows);
 
         Stage chartStage = new Stage();
         chartStage.setTitle("Rainfall Comparison Chart");
@@ -147,14 +129,4 @@ public class RainfallGraphGenerator {
         alert.setContentText(message);
         alert.show();
     }
-
-    private static boolean isNumeric(String str) {
-        if (str == null) return false;
-        try {
-            Double.parseDouble(str.replaceAll("[^0-9.\\-Ee]", ""));
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
 }
\ No newline at end of file
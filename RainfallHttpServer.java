@@ -0,0 +1,438 @@
+package rainfallPrediction;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless HTTP front end for RainfallModelService, built on the JDK's com.sun.net.httpserver,
+ * so other processes on the host can get predictions without the JavaFX app.
+ *
+ * Endpoints:
+ *   POST /predict  JSON object -> {"prediction": x}; JSON array of objects -> {"predictions": [...]};
+ *                  CSV with a header (Content-Type: text/csv) -> CSV with one Prediction per row.
+ *                  Rows carry height, minMeanTemp, maxMeanTemp, meanRelHum and state; predictions
+ *                  that can't be made (non-finite input) are null / empty.
+ *   GET /health    UP, DEGRADED (p99 over the target) or DOWN (no model, 503) as JSON.
+ *   GET /metrics   Request counts and latency quantiles, plus the pipeline stages, in Prometheus
+ *                  text format.
+ *
+ * Requests run on a fixed pool of 4 platform threads per core. That includes the Java 17
+ * toolchain this project targets. Only a Java 21+ runtime, where
+ * Executors.newVirtualThreadPerTaskExecutor() is found by reflection, runs each request on its
+ * own virtual thread. usesVirtualThreads() and /health report which one is in use.
+ * With a MicroBatchScheduler, single-row requests from concurrent clients are coalesced into
+ * batched inference calls instead of each running its own [1, 17] inference.
+ *
+ * Usage:
+ *   java -cp ... rainfallPrediction.RainfallHttpServer --model model.onnx|bundle-dir|bundle.zip
+ *        [--scaler-mean scaler_mean.csv --scaler-scale scaler_scale.csv]
+ *        [--host 127.0.0.1] [--port 8080] [--threads N] [--cache N] [--p99-target-ms 25]
+ *        [--batch-wait-us 2000] [--max-batch 256]
+ */
+public class RainfallHttpServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final double DEFAULT_P99_TARGET_MILLIS = 25.0;
+    public static final int MAX_BODY_BYTES = 16 << 20;
+    public static final int MAX_ROWS_PER_REQUEST = 100_000;
+
+    // p99 is only judged against the target once there are enough requests to mean anything
+    private static final long MIN_REQUESTS_FOR_P99 = 100;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final RainfallModelService service;
+    private final MicroBatchScheduler scheduler;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final double p99TargetMillis;
+    private final long startNanos = System.nanoTime();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder okRequests = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder rowsPredicted = new LongAdder();
+
+    public RainfallHttpServer(RainfallModelService service, InetSocketAddress address, double p99TargetMillis) throws IOException {
+        this(service, null, address, p99TargetMillis);
+    }
+
+    /**
+     * @param scheduler coalesces single-row requests, or null to run each one directly; not closed by stop()
+     */
+    public RainfallHttpServer(RainfallModelService service, MicroBatchScheduler scheduler, InetSocketAddress address,
+                              double p99TargetMillis) throws IOException {
+        this.service = service;
+        this.scheduler = scheduler;
+        this.p99TargetMillis = p99TargetMillis;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformExecutor();
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/predict", this::handlePredict);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when the running JVM has it, else null.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Requests mostly wait for a predictor, so allow a few per core
+    private static ExecutorService newPlatformExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4, runnable -> {
+            Thread t = new Thread(runnable, "rainfall-http-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to delaySeconds for running ones, then stops the workers.
+     * The model service is left open.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = 500;
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                status = sendError(exchange, 405, "Use POST");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                status = sendError(exchange, 413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+                return;
+            }
+            String text = new String(body, StandardCharsets.UTF_8);
+            boolean csv = isCsv(exchange.getRequestHeaders().getFirst("Content-Type"));
+            PredictionRequestParser.Rows rows = csv
+                    ? PredictionRequestParser.parseCsv(text, MAX_ROWS_PER_REQUEST)
+                    : PredictionRequestParser.parseJson(text, MAX_ROWS_PER_REQUEST);
+            float[] predictions = rows.count == 1 && scheduler != null
+                    ? new float[] {predictCoalesced(rows.features)}
+                    : service.predictBatch(rows.features, rows.count);
+            rowsPredicted.add(rows.count);
+            status = csv ? send(exchange, 200, "text/csv", toCsv(predictions))
+                    : send(exchange, 200, "application/json", toJson(predictions, rows.single));
+        } catch (IllegalArgumentException e) {
+            status = sendError(exchange, 400, e.getMessage());
+        } catch (RainfallModelService.ModelNotLoadedException | RejectedExecutionException e) {
+            // No model loaded, or the micro-batch queue is full; anything else is a server error
+            status = sendError(exchange, 503, e.getMessage());
+        } catch (Exception e) {
+            status = sendError(exchange, 500, e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+            latency.record(System.nanoTime() - start);
+            if (status < 400) okRequests.increment();
+            else if (status < 500) clientErrors.increment();
+            else serverErrors.increment();
+            exchange.close();
+        }
+    }
+
+    private float predictCoalesced(float[] features) throws Exception {
+        if (features.length != RainfallModelService.FEATURE_SIZE) {
+            features = Arrays.copyOf(features, RainfallModelService.FEATURE_SIZE);
+        }
+        try {
+            return scheduler.submit(features).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            boolean loaded = service.isLoaded();
+            double p99Millis = latency.getPercentile(0.99) / 1e6;
+            String status = !loaded ? "DOWN"
+                    : latency.getCount() >= MIN_REQUESTS_FOR_P99 && p99Millis > p99TargetMillis ? "DEGRADED" : "UP";
+            String json = String.format(Locale.ROOT,
+                    "{\"status\":\"%s\",\"modelLoaded\":%b,\"virtualThreads\":%b,\"uptimeSeconds\":%d,"
+                            + "\"requests\":%d,\"p99Millis\":%.3f,\"p99TargetMillis\":%.3f}",
+                    status, loaded, virtualThreads, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                    latency.getCount(), p99Millis, p99TargetMillis);
+            send(exchange, loaded ? 200 : 503, "application/json", json);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            send(exchange, 200, "text/plain; version=0.0.4", metricsText());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Counters and latency quantiles in the Prometheus text exposition format.
+     */
+    String metricsText() {
+        StringBuilder sb = new StringBuilder(2048);
+        sb.append("# HELP rainfall_http_requests_total /predict requests by outcome.\n");
+        sb.append("# TYPE rainfall_http_requests_total counter\n");
+        sb.append("rainfall_http_requests_total{outcome=\"ok\"} ").append(okRequests.sum()).append('\n');
+        sb.append("rainfall_http_requests_total{outcome=\"client_error\"} ").append(clientErrors.sum()).append('\n');
+        sb.append("rainfall_http_requests_total{outcome=\"server_error\"} ").append(serverErrors.sum()).append('\n');
+        sb.append("# HELP rainfall_http_rows_total Rows predicted over HTTP.\n");
+        sb.append("# TYPE rainfall_http_rows_total counter\n");
+        sb.append("rainfall_http_rows_total ").append(rowsPredicted.sum()).append('\n');
+
+        sb.append("# HELP rainfall_http_request_duration_seconds /predict latency, from reading the request to the response.\n");
+        sb.append("# TYPE rainfall_http_request_duration_seconds summary\n");
+        for (double q : QUANTILES) {
+            sb.append(String.format(Locale.ROOT, "rainfall_http_request_duration_seconds{quantile=\"%s\"} %.6f%n",
+                    q, latency.getPercentile(q) / 1e9));
+        }
+        sb.append(String.format(Locale.ROOT, "rainfall_http_request_duration_seconds_sum %.6f%n", latency.getSum() / 1e9));
+        sb.append("rainfall_http_request_duration_seconds_count ").append(latency.getCount()).append('\n');
+        sb.append("# HELP rainfall_http_p99_target_seconds Latency target for the /predict p99.\n");
+        sb.append("# TYPE rainfall_http_p99_target_seconds gauge\n");
+        sb.append(String.format(Locale.ROOT, "rainfall_http_p99_target_seconds %.6f%n", p99TargetMillis / 1e3));
+
+        if (scheduler != null) appendSchedulerMetrics(sb);
+
+        sb.append("# HELP rainfall_stage_duration_seconds Latency per call of each pipeline stage (see PipelineMetrics).\n");
+        sb.append("# TYPE rainfall_stage_duration_seconds summary\n");
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            PipelineMetrics.StageStats stats = PipelineMetrics.stats(stage);
+            if (stats.getCount() == 0) continue;
+            sb.append(String.format(Locale.ROOT, "rainfall_stage_duration_seconds{stage=\"%s\",quantile=\"0.5\"} %.6f%n",
+                    stage, stats.getP50Micros() / 1e6));
+            sb.append(String.format(Locale.ROOT, "rainfall_stage_duration_seconds{stage=\"%s\",quantile=\"0.99\"} %.6f%n",
+                    stage, stats.getP99Micros() / 1e6));
+            sb.append(String.format(Locale.ROOT, "rainfall_stage_duration_seconds_count{stage=\"%s\"} %d%n",
+                    stage, stats.getCount()));
+        }
+        return sb.toString();
+    }
+
+    private void appendSchedulerMetrics(StringBuilder sb) {
+        sb.append("# HELP rainfall_microbatch_queue_depth Single-row requests waiting to join a batch.\n");
+        sb.append("# TYPE rainfall_microbatch_queue_depth gauge\n");
+        sb.append("rainfall_microbatch_queue_depth ").append(scheduler.getQueueDepth()).append('\n');
+        sb.append("# HELP rainfall_microbatch_rejected_total Requests rejected because the queue was full.\n");
+        sb.append("# TYPE rainfall_microbatch_rejected_total counter\n");
+        sb.append("rainfall_microbatch_rejected_total ").append(scheduler.getRejected()).append('\n');
+        LatencyHistogram sizes = scheduler.getBatchSizes();
+        sb.append("# HELP rainfall_microbatch_batch_size Rows per coalesced inference call.\n");
+        sb.append("# TYPE rainfall_microbatch_batch_size summary\n");
+        for (double q : QUANTILES) {
+            sb.append(String.format(Locale.ROOT, "rainfall_microbatch_batch_size{quantile=\"%s\"} %d%n", q, sizes.getPercentile(q)));
+        }
+        sb.append("rainfall_microbatch_batch_size_sum ").append(sizes.getSum()).append('\n');
+        sb.append("rainfall_microbatch_batch_size_count ").append(sizes.getCount()).append('\n');
+        LatencyHistogram waits = scheduler.getWaits();
+        sb.append("# HELP rainfall_microbatch_wait_seconds Time a request waited for its batch to start.\n");
+        sb.append("# TYPE rainfall_microbatch_wait_seconds summary\n");
+        for (double q : QUANTILES) {
+            sb.append(String.format(Locale.ROOT, "rainfall_microbatch_wait_seconds{quantile=\"%s\"} %.6f%n", q, waits.getPercentile(q) / 1e9));
+        }
+        sb.append(String.format(Locale.ROOT, "rainfall_microbatch_wait_seconds_sum %.6f%n", waits.getSum() / 1e9));
+        sb.append("rainfall_microbatch_wait_seconds_count ").append(waits.getCount()).append('\n');
+    }
+
+    private static boolean isCsv(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/csv") || type.startsWith("application/csv");
+    }
+
+    // Whole body, or null if it is larger than MAX_BODY_BYTES
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static String toJson(float[] predictions, boolean single) {
+        if (single) return "{\"prediction\":" + jsonNumber(predictions[0]) + "}";
+        StringBuilder sb = new StringBuilder(16 + predictions.length * 10);
+        sb.append("{\"predictions\":[");
+        for (int i = 0; i < predictions.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(jsonNumber(predictions[i]));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String jsonNumber(float value) {
+        return Float.isFinite(value) ? Float.toString(value) : "null";
+    }
+
+    private static String toCsv(float[] predictions) {
+        StringBuilder sb = new StringBuilder(16 + predictions.length * 10);
+        sb.append("Prediction\n");
+        for (float p : predictions) {
+            if (Float.isFinite(p)) sb.append(p);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static int sendError(HttpExchange exchange, int status, String message) throws IOException {
+        return send(exchange, status, "application/json", "{\"error\":\"" + jsonEscape(String.valueOf(message)) + "\"}");
+    }
+
+    private static int send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        return status;
+    }
+
+    private static String jsonEscape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static double positiveDouble(String[] args, int i, String option) {
+        double value;
+        try {
+            value = Double.parseDouble(RainfallBatchCli.value(args, i, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value for " + option + " must be a number");
+        }
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Value for " + option + " must be positive, got " + value);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) {
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        File model = null;
+        String scalerMean = null;
+        String scalerScale = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheSize = 0;
+        double p99Target = DEFAULT_P99_TARGET_MILLIS;
+        int batchWaitMicros = (int) TimeUnit.NANOSECONDS.toMicros(MicroBatchScheduler.DEFAULT_MAX_WAIT_NANOS);
+        int maxBatch = MicroBatchScheduler.DEFAULT_MAX_BATCH_SIZE;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--model": model = new File(RainfallBatchCli.value(args, ++i, arg)); break;
+                    case "--scaler-mean": scalerMean = RainfallBatchCli.value(args, ++i, arg); break;
+                    case "--scaler-scale": scalerScale = RainfallBatchCli.value(args, ++i, arg); break;
+                    case "--host": host = RainfallBatchCli.value(args, ++i, arg); break;
+                    case "--port": port = RainfallBatchCli.intValue(args, ++i, arg); break;
+                    case "--threads": threads = RainfallBatchCli.intValue(args, ++i, arg); break;
+                    case "--cache": cacheSize = RainfallBatchCli.intValue(args, ++i, arg); break;
+                    case "--p99-target-ms": p99Target = positiveDouble(args, ++i, arg); break;
+                    case "--batch-wait-us": batchWaitMicros = RainfallBatchCli.intValue(args, ++i, arg); break;
+                    case "--max-batch": maxBatch = RainfallBatchCli.intValue(args, ++i, arg); break;
+                    default: throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (model == null) throw new IllegalArgumentException("--model is required");
+            RainfallBatchCli.checkScalerArgs(scalerMean, scalerScale);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: RainfallHttpServer --model <model.onnx|bundle dir|bundle.zip> "
+                    + "[--scaler-mean <scaler_mean.csv> --scaler-scale <scaler_scale.csv>] [--host 127.0.0.1] [--port 8080] [--threads N] [--cache N] "
+                    + "[--p99-target-ms 25] [--batch-wait-us 2000] [--max-batch 256]");
+            System.exit(2);
+            return;
+        }
+
+        RainfallModelService service = new RainfallModelService();
+        MicroBatchScheduler scheduler = null;
+        try {
+            service.setParallelism(threads);
+            if (cacheSize > 0) service.enablePredictionCache(cacheSize);
+            String error = RainfallBatchCli.loadModel(service, model, scalerMean, scalerScale);
+            if (error != null) throw new IllegalStateException(error);
+            // --batch-wait-us 0 runs every request on its own
+            if (batchWaitMicros > 0) {
+                scheduler = new MicroBatchScheduler(service, "http", maxBatch,
+                        TimeUnit.MICROSECONDS.toNanos(batchWaitMicros), threads, MicroBatchScheduler.DEFAULT_MAX_QUEUED);
+            }
+            RainfallHttpServer httpServer = new RainfallHttpServer(service, scheduler, new InetSocketAddress(host, port), p99Target);
+            httpServer.start();
+            MicroBatchScheduler coalescer = scheduler;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                httpServer.stop(2);
+                if (coalescer != null) coalescer.close();
+                service.close();
+            }, "rainfall-http-shutdown"));
+            InetSocketAddress address = httpServer.getAddress();
+            System.out.printf("Listening on http://%s:%d (%s threads, p99 target %.1f ms)%n",
+                    address.getHostString(), address.getPort(),
+                    httpServer.usesVirtualThreads() ? "virtual" : "pooled", p99Target);
+        } catch (Exception e) {
+            System.err.println("HTTP server failed to start: " + e.getMessage());
+            if (scheduler != null) scheduler.close();
+            service.close();
+            System.exit(1);
+        }
+    }
+}
@@ -1,10 +1,6 @@
 package rainfallPrediction;
 
-import ai.djl.inference.Predictor;
-import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
-import ai.djl.ndarray.NDManager;
-import ai.djl.ndarray.types.Shape;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.TranslateException;
@@ -13,168 +9,743 @@ import ai.djl.engine.Engine;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RainfallModelService {
 
     public static final int FEATURE_SIZE = 17;
 
-    private ZooModel<NDList, NDList> model;
-    private Predictor<NDList, NDList> predictor;
+    // Rows per [N, FEATURE_SIZE] tensor in predictBatch
+    public static final int DEFAULT_BATCH_SIZE = 4096;
 
-    private float[] scalerMean = null;
-    private float[] scalerScale = null;
+    // Representative batches run through every predictor before a new model goes live,
+    // e.g. -Drainfall.warmup.batches=5
+    public static final int DEFAULT_WARMUP_BATCHES = Integer.getInteger("rainfall.warmup.batches", 3);
 
-    // Store prediction history for graphing
-    private List<Float> predictionHistory = new ArrayList<>();
-    public List<Float> getPredictionHistory() { return predictionHistory; }
+    // The model, pool and scaler currently serving predictions; replaced atomically by loadModel
+    private final AtomicReference<ModelHandle> current = new AtomicReference<>();
+    // Serializes loads, pool rebuilds and close(); predictions never take it
+    private final Object swapLock = new Object();
+    private ExecutorService workers;
 
-    public String loadModel(File modelFile) {
-        close();
-        try {
-            Path modelPath = modelFile.toPath();
-            String fileName = modelFile.getName().toLowerCase();
-
-            Criteria<NDList, NDList> criteria;
-            if (fileName.endsWith(".onnx")) {
-                criteria = Criteria.builder()
-                        .setTypes(NDList.class, NDList.class)
-                        .optModelPath(modelPath)
-                        .optEngine("OnnxRuntime")
-                        .build();
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    // Bumped on every load so cached predictions from a previous model never match
+    private final AtomicLong modelGeneration = new AtomicLong();
+    private volatile PredictionCache predictionCache = null;
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    private volatile int warmupBatches = DEFAULT_WARMUP_BATCHES;
+
+    // Most recent single-row predictions, for graphing
+    public static final int PREDICTION_HISTORY_CAPACITY = 10_000;
+
+    // Ring buffer of the last PREDICTION_HISTORY_CAPACITY predictValue results, guarded by itself
+    private final float[] predictionHistory = new float[PREDICTION_HISTORY_CAPACITY];
+    private int historyStart = 0;
+    private int historySize = 0;
+
+    /**
+     * Copy of the recent predictValue results, oldest first; at most PREDICTION_HISTORY_CAPACITY.
+     */
+    public List<Float> getPredictionHistory() {
+        synchronized (predictionHistory) {
+            List<Float> snapshot = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                snapshot.add(predictionHistory[(historyStart + i) % PREDICTION_HISTORY_CAPACITY]);
+            }
+            return snapshot;
+        }
+    }
+
+    public void clearPredictionHistory() {
+        synchronized (predictionHistory) {
+            historyStart = 0;
+            historySize = 0;
+        }
+    }
+
+    private void recordHistory(float prediction) {
+        synchronized (predictionHistory) {
+            if (historySize < PREDICTION_HISTORY_CAPACITY) {
+                predictionHistory[(historyStart + historySize++) % PREDICTION_HISTORY_CAPACITY] = prediction;
             } else {
-                criteria = Criteria.builder()
-                        .setTypes(NDList.class, NDList.class)
-                        .optModelPath(modelPath)
-                        .build();
+                // Full: overwrite the oldest entry
+                predictionHistory[historyStart] = prediction;
+                historyStart = (historyStart + 1) % PREDICTION_HISTORY_CAPACITY;
             }
+        }
+    }
 
-            model = criteria.loadModel();
-            predictor = model.newPredictor();
+    // Legacy scaler parameters used by loadModel(File) when the model has no bundle files next to it
+    public static final String DEFAULT_SCALER_MEAN_PATH = "C:/Users/User/eclipse-workspace/RainfallONNX/scaler_mean.csv";
+    public static final String DEFAULT_SCALER_SCALE_PATH = "C:/Users/User/eclipse-workspace/RainfallONNX/scaler_scale.csv";
+
+    /**
+     * Loads a model bundle directory, a bundle .zip, or a model file (see ModelBundle.resolve).
+     */
+    public String loadModel(File modelFile) {
+        return loadModel(ModelBundle.resolve(modelFile));
+    }
 
-            // Load scaler parameters (assumes files are in project root or specify the correct path)
+    public String loadModel(File modelFile, String scalerMeanPath, String scalerScalePath) {
+        return loadModel(ModelBundle.of(modelFile, scalerMeanPath, scalerScalePath));
+    }
+
+    /**
+     * Loads the bundle's model and scaler parameters and swaps them in for the current ones.
+     * The scaler and the feature order check run on their own threads while the model loads.
+     * Loading and warm-up happen while the current model keeps serving; predictions already
+     * running finish on the old model, which is closed once they drain.
+     * If loading fails the current model stays in service.
+     *
+     * @return null on success, otherwise a user-facing error message
+     */
+    public String loadModel(ModelBundle bundle) {
+        synchronized (swapLock) {
+            ZooModel<NDList, NDList> model = null;
+            PredictorPool pool = null;
+            ModelHandle handle = null;
+            long start = System.nanoTime();
+            Future<ScalerSidecar.Scaler> scalerLoad = loadInBackground(bundle::loadScaler, "scaler");
+            Future<Void> orderCheck = loadInBackground(() -> {
+                bundle.checkFeatureOrder();
+                return null;
+            }, "feature-order");
             try {
-                scalerMean = StandardScalerUtil.loadArray("C:/Users/User/eclipse-workspace/RainfallONNX/scaler_mean.csv");
-                scalerScale = StandardScalerUtil.loadArray("C:/Users/User/eclipse-workspace/RainfallONNX/scaler_scale.csv");
-                if (scalerMean.length != FEATURE_SIZE || scalerScale.length != FEATURE_SIZE) {
-                    scalerMean = null;
-                    scalerScale = null;
-                    throw new IllegalStateException("Scaler parameter size mismatch: mean=" +
-                        (scalerMean != null ? scalerMean.length : "null") +
-                        ", scale=" +
-                        (scalerScale != null ? scalerScale.length : "null") +
-                        ". Both must be of length " + FEATURE_SIZE);
+                File modelFile = bundle.modelFile();
+                Path modelPath = modelFile.toPath();
+                String fileName = modelFile.getName().toLowerCase();
+
+                Criteria<NDList, NDList> criteria;
+                if (fileName.endsWith(".onnx")) {
+                    criteria = Criteria.builder()
+                            .setTypes(NDList.class, NDList.class)
+                            .optModelPath(modelPath)
+                            .optEngine("OnnxRuntime")
+                            .build();
+                } else {
+                    criteria = Criteria.builder()
+                            .setTypes(NDList.class, NDList.class)
+                            .optModelPath(modelPath)
+                            .build();
                 }
-                System.out.println("Scaler parameters loaded successfully.");
+
+                model = criteria.loadModel();
+
+                float[] scalerMean;
+                float[] scalerScale;
+                CompiledFeatureTransformer transformer;
+                try {
+                    ScalerSidecar.Scaler scaler = await(scalerLoad);
+                    scalerMean = scaler.mean;
+                    scalerScale = scaler.scale;
+                    if (scalerMean.length != FEATURE_SIZE || scalerScale.length != FEATURE_SIZE) {
+                        throw new IllegalStateException("Scaler parameter size mismatch: mean=" +
+                            scalerMean.length + ", scale=" + scalerScale.length +
+                            ". Both must be of length " + FEATURE_SIZE);
+                    }
+                    transformer = new CompiledFeatureTransformer(scalerMean, scalerScale);
+                    System.out.println("Scaler parameters loaded successfully" + (scaler.cached ? " (cached)." : "."));
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed to load scaler parameters (scaler_mean.csv, scaler_scale.csv): " + e.getMessage(), e);
+                }
+                await(orderCheck);
+
+                pool = new PredictorPool(model, parallelism, batchSize);
+                handle = new ModelHandle(model, pool, transformer, modelGeneration.incrementAndGet());
+
+                System.out.println("Loaded model using engine: " + Engine.getInstance().getEngineName());
+                System.out.println("Model path: " + modelPath);
+                System.out.printf("Bundle %s loaded in %.1f ms%n", bundle, (System.nanoTime() - start) / 1e6);
+
+                long t0 = System.nanoTime();
+                warmUp(handle, scalerMean, scalerScale);
+                System.out.printf("Warmed up %d predictor(s) with %d batch(es) of %d rows in %.1f ms%n",
+                        pool.size(), warmupBatches, batchSize, (System.nanoTime() - t0) / 1e6);
+
+                install(handle);
+                return null;
+            } catch (UnsupportedOperationException uoe) {
+                discard(handle, pool, model);
+                uoe.printStackTrace();
+                return "Error: The DJL engine in use does not support this NDArray operation (reshape). " +
+                       "Check that you are using the OnnxRuntime engine and that your model and input data are compatible. " +
+                       "Technical error: " + uoe.getClass().getSimpleName() + " - " + uoe.getMessage();
             } catch (Exception e) {
-                throw new RuntimeException("Failed to load scaler parameters (scaler_mean.csv, scaler_scale.csv): " + e.getMessage(), e);
-            }
-
-            System.out.println("Loaded model using engine: " + Engine.getInstance().getEngineName());
-            System.out.println("Model path: " + modelPath);
-
-            // Test the model with a dummy input (all zeros, scaled)
-            try (NDManager manager = NDManager.newBaseManager()) {
-                float[] testInput = new float[FEATURE_SIZE];
-                for (int i = 0; i < FEATURE_SIZE; i++)
-                    testInput[i] = 0f;
-                float[] scaledTest = new float[FEATURE_SIZE];
-                for (int i = 0; i < FEATURE_SIZE; i++)
-                    scaledTest[i] = (testInput[i] - scalerMean[i]) / scalerScale[i];
-
-                NDArray input = manager.create(scaledTest, new Shape(1, FEATURE_SIZE));
-                input.setName("float_input");
-                NDList inputList = new NDList(input);
-
-                System.out.println("Testing model with scaled float_input NDArray...");
-                NDList out = predictor.predict(inputList);
-                System.out.println("Output shape: " + out.singletonOrThrow().getShape());
-            }
-            return null;
-        } catch (UnsupportedOperationException uoe) {
-            uoe.printStackTrace();
-            return "Error: The DJL engine in use does not support this NDArray operation (reshape). " +
-                   "Check that you are using the OnnxRuntime engine and that your model and input data are compatible. " +
-                   "Technical error: " + uoe.getClass().getSimpleName() + " - " + uoe.getMessage();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error loading model:\n\nFile: " + modelFile.getAbsolutePath() + "\n\n"
-                    + "Possible causes:\n"
-                    + "1. Invalid model format\n"
-                    + "2. Input shape mismatch (should be a single float NDArray of shape [1, FEATURE_SIZE] named float_input)\n"
-                    + "3. Missing DJL OnnxRuntime dependency\n"
-                    + "4. ONNX Runtime native library not found (DLL/SO)\n"
-                    + "5. Model exported incorrectly from Python\n"
-                    + "6. Missing or invalid scaler_mean.csv/scaler_scale.csv\n\n"
-                    + "Technical error: " + e.getClass().getSimpleName() + " - " + e.getMessage();
+                discard(handle, pool, model);
+                e.printStackTrace();
+                return "Error loading model:\n\nFile: " + bundle.getSource().getAbsolutePath() + "\n\n"
+                        + "Possible causes:\n"
+                        + "1. Invalid model format\n"
+                        + "2. Input shape mismatch (should be a single float NDArray of shape [1, FEATURE_SIZE] named float_input)\n"
+                        + "3. Missing DJL OnnxRuntime dependency\n"
+                        + "4. ONNX Runtime native library not found (DLL/SO)\n"
+                        + "5. Model exported incorrectly from Python\n"
+                        + "6. Missing or invalid scaler_mean.csv/scaler_scale.csv\n"
+                        + "7. feature_order.csv in the bundle does not match the app's feature order\n\n"
+                        + "Technical error: " + e.getClass().getSimpleName() + " - " + e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * Runs one piece of a bundle load on its own daemon thread.
+     */
+    private static <T> Future<T> loadInBackground(Callable<T> task, String name) {
+        FutureTask<T> future = new FutureTask<>(task);
+        Thread t = new Thread(future, "rainfall-load-" + name);
+        t.setDaemon(true);
+        t.start();
+        return future;
+    }
+
+    // Result of a background load step, with its own exception rethrown
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the default engine (loading its native libraries) on a background thread, so the
+     * first loadModel does not pay for it. Safe to call more than once.
+     */
+    public static void preloadEngine() {
+        Thread t = new Thread(() -> {
+            try {
+                Engine.getEngine("OnnxRuntime");
+            } catch (Exception | LinkageError e) {
+                DebugLog.println("Engine preload failed; loadModel will report it: " + e);
+            }
+        }, "rainfall-engine-preload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Makes the handle current. Predictions that already hold the previous handle keep it until
+     * they finish; it is closed when the last of them releases it.
+     */
+    private void install(ModelHandle handle) {
+        ModelHandle previous = current.getAndSet(handle);
+        PredictionCache cache = predictionCache;
+        if (cache != null && (previous == null || previous.generation != handle.generation)) cache.invalidate();
+        if (previous != null) {
+            int inFlight = previous.inFlight();
+            if (inFlight > 0) System.out.println("Previous model retired; closing after " + inFlight + " in-flight prediction(s)");
+            previous.retire();
+        }
+    }
+
+    private static void discard(ModelHandle handle, PredictorPool pool, ZooModel<NDList, NDList> model) {
+        if (handle != null) {
+            handle.retire();
+            return;
+        }
+        if (pool != null) pool.close();
+        if (model != null) {
+            try {
+                model.close();
+            } catch (Exception ignored) {}
+        }
+    }
+
+    /**
+     * Runs a new handle on every one of its predictors before it serves requests: first a single
+     * row as a sanity check, then getWarmupBatches() rounds of a full getBatchSize() batch plus a
+     * single row, so the JIT, the engine's per-shape setup and each arena's cached input tensors
+     * are ready for the first real request. Rows are drawn around the training distribution
+     * (mean + scale * N(0, 1), random state) and are not recorded in PipelineMetrics.
+     */
+    private void warmUp(ModelHandle handle, float[] mean, float[] scale) throws TranslateException {
+        int rows = batchSize;
+        float[] sample = new float[rows * FEATURE_SIZE];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int r = 0; r < rows; r++) {
+            FeatureVectorUtil.writeFeatureVector(sample, r * FEATURE_SIZE,
+                    (float) (mean[0] + scale[0] * random.nextGaussian()),
+                    (float) (mean[1] + scale[1] * random.nextGaussian()),
+                    (float) (mean[2] + scale[2] * random.nextGaussian()),
+                    (float) (mean[3] + scale[3] * random.nextGaussian()),
+                    random.nextInt(FeatureVectorUtil.stateCount()));
+        }
+        float[] out = new float[rows];
+
+        // Borrow every arena at once so each one is warmed, not just the first free one
+        InferenceArena[] arenas = new InferenceArena[handle.pool.size()];
+        try {
+            for (int i = 0; i < arenas.length; i++) arenas[i] = handle.pool.borrow();
+            for (InferenceArena arena : arenas) runRange(handle, arena, sample, 0, 1, out, rows, false);
+            for (int b = 0; b < warmupBatches; b++) {
+                for (InferenceArena arena : arenas) {
+                    runRange(handle, arena, sample, 0, rows, out, rows, false);
+                    runRange(handle, arena, sample, b % rows, b % rows + 1, out, rows, false);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslateException("Interrupted while warming up the model", e);
+        } finally {
+            for (InferenceArena arena : arenas) handle.pool.release(arena);
+        }
+    }
+
+    /**
+     * Representative batches each predictor runs before a newly loaded model goes live.
+     */
+    public int getWarmupBatches() {
+        return warmupBatches;
+    }
+
+    /**
+     * Sets how many representative batches loadModel runs through every predictor before
+     * swapping the new model in; 0 keeps only a single-row check.
+     */
+    public void setWarmupBatches(int warmupBatches) {
+        if (warmupBatches < 0)
+            throw new IllegalArgumentException("Warm-up batches must not be negative, got " + warmupBatches);
+        this.warmupBatches = warmupBatches;
+    }
+
+    /**
+     * Thrown by the prediction methods when no model has been loaded yet.
+     */
+    public static class ModelNotLoadedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        ModelNotLoadedException() {
+            super("Predictor or scaler not initialized.");
+        }
+    }
+
+    /**
+     * Takes a reference on the current model for the duration of one prediction call.
+     */
+    private ModelHandle acquire() {
+        while (true) {
+            ModelHandle handle = current.get();
+            if (handle == null) throw new ModelNotLoadedException();
+            // Fails only if the handle was swapped out and drained meanwhile; the next one is current
+            if (handle.tryAcquire()) return handle;
         }
     }
 
     public boolean isLoaded() {
-        return predictor != null && model != null && scalerMean != null && scalerScale != null;
+        return current.get() != null;
     }
 
     public String predict(List<Float> features) throws TranslateException {
-        if (!isLoaded())
-            throw new IllegalStateException("Predictor or scaler not initialized.");
+        if (features == null || features.size() != FEATURE_SIZE) {
+            throw new IllegalArgumentException("Feature vector must be of size " + FEATURE_SIZE);
+        }
+        return predict(FeatureVectorUtil.toArray(features));
+    }
 
+    /**
+     * Formatted prediction, e.g. "12.34 mm", or "NaN" if any input feature is not finite.
+     * Prefer predictValue when the number is needed.
+     */
+    public String predict(float[] features) throws TranslateException {
+        float value = predictValue(features);
+        if (Float.isNaN(value)) {
+            for (float f : features) {
+                if (!Float.isFinite(f)) return "NaN";
+            }
+        }
+        return String.format("%.2f mm", value);
+    }
+
+    public float predictValue(List<Float> features) throws TranslateException {
         if (features == null || features.size() != FEATURE_SIZE) {
             throw new IllegalArgumentException("Feature vector must be of size " + FEATURE_SIZE);
         }
-        for (Float f : features) {
-            if (f == null || !Float.isFinite(f)) {
-                return "NaN";
+        return predictValue(FeatureVectorUtil.toArray(features));
+    }
+
+    /**
+     * Predicted rainfall in mm for one raw feature vector, or NaN if any feature is not finite.
+     */
+    public float predictValue(float[] features) throws TranslateException {
+        ModelHandle handle = acquire();
+        try {
+            return predictValue(handle, features);
+        } finally {
+            handle.release();
+        }
+    }
+
+    private float predictValue(ModelHandle handle, float[] features) throws TranslateException {
+        if (features == null || features.length != FEATURE_SIZE) {
+            throw new IllegalArgumentException("Feature vector must be of size " + FEATURE_SIZE);
+        }
+        for (float f : features) {
+            if (!Float.isFinite(f)) {
+                return Float.NaN;
             }
         }
 
         // === DEBUG: Print the raw feature vector (after one-hot, before scaling) ===
-        System.out.println("JAVA RAW FEATURES: " + features);
-
-        // Scale features before prediction
-        float[] scaled = StandardScalerUtil.scale(features, scalerMean, scalerScale);
-
-        // === DEBUG: Print the scaled feature vector ===
-        System.out.print("JAVA SCALED FEATURES: [");
-        for (float f : scaled) System.out.print(f + ", ");
-        System.out.println("]");
-
-        try (NDManager manager = NDManager.newBaseManager()) {
-            NDArray input = manager.create(scaled, new Shape(1, FEATURE_SIZE));
-            input.setName("float_input");
-            NDList inputList = new NDList(input);
-
-            NDList output = predictor.predict(inputList);
-            NDArray resultArray = output.singletonOrThrow();
-            float predictedRainfall;
-            if (resultArray.size() >= 1) {
-                predictedRainfall = resultArray.toFloatArray()[0];
-            } else {
-                predictedRainfall = Float.NaN;
+        if (DebugLog.isEnabled()) DebugLog.println("JAVA RAW FEATURES: " + Arrays.toString(features));
+
+        PredictionCache cache = predictionCache;
+        PredictionCache.Key key = cache == null ? null : cache.keyOf(features, 0, handle.generation);
+        if (key != null) {
+            Float cached = cache.get(key);
+            if (cached != null) {
+                recordHistory(cached);
+                return cached;
+            }
+        }
+
+        InferenceArena arena = borrowArena(handle);
+        try {
+            // Scale features before prediction
+            long t0 = System.nanoTime();
+            float[] scaled = arena.stagingBuffer();
+            handle.transformer.transform(features, 0, scaled, 0);
+            PipelineMetrics.recordSince(PipelineMetrics.Stage.SCALE, t0, 1);
+
+            // === DEBUG: Print the scaled feature vector ===
+            if (DebugLog.isEnabled()) {
+                DebugLog.println("JAVA SCALED FEATURES: " + Arrays.toString(Arrays.copyOf(scaled, FEATURE_SIZE)));
             }
 
+            long t1 = System.nanoTime();
+            int produced = arena.run(1);
+            PipelineMetrics.recordSince(PipelineMetrics.Stage.INFERENCE, t1, 1);
+
+            long t2 = System.nanoTime();
+            float predictedRainfall = produced >= 1 ? arena.outputBuffer()[0] : Float.NaN;
+
             // === DEBUG: Print the prediction ===
-            System.out.println("JAVA PREDICTION: " + predictedRainfall);
+            if (DebugLog.isEnabled()) DebugLog.println("JAVA PREDICTION: " + predictedRainfall);
 
-            predictionHistory.add(predictedRainfall); // Store for graph
-            return String.format("%.2f mm", predictedRainfall);
+            recordHistory(predictedRainfall); // Store for graph
+            if (key != null && Float.isFinite(predictedRainfall)) cache.put(key, predictedRainfall);
+            PipelineMetrics.recordSince(PipelineMetrics.Stage.POST_PROCESS, t2, 1);
+            return predictedRainfall;
+        } finally {
+            handle.pool.release(arena);
         }
     }
 
-    public void close() {
-        if (predictor != null) {
-            try {
-                predictor.close();
-            } catch (Exception ignored) {}
-            predictor = null;
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs batched inference over many feature vectors (raw, before scaling).
+     * Rows containing null or non-finite values get NaN as their prediction.
+     */
+    public float[] predictBatch(List<List<Float>> rows) throws TranslateException {
+        float[] flat = new float[rows.size() * FEATURE_SIZE];
+        for (int r = 0; r < rows.size(); r++) {
+            List<Float> row = rows.get(r);
+            if (row == null || row.size() != FEATURE_SIZE) {
+                throw new IllegalArgumentException("Feature vector at row " + r + " must be of size " + FEATURE_SIZE);
+            }
+            System.arraycopy(FeatureVectorUtil.toArray(row), 0, flat, r * FEATURE_SIZE, FEATURE_SIZE);
         }
-        if (model != null) {
-            try {
-                model.close();
-            } catch (Exception ignored) {}
-            model = null;
+        return predictBatch(flat, rows.size());
+    }
+
+    /**
+     * Puts a bounded LRU cache in front of predict/predictBatch. Rows whose numeric features
+     * round to the same multiple of quantum (and share a state) reuse one prediction.
+     * The cache is cleared whenever loadModel replaces the model.
+     */
+    public void enablePredictionCache(int maxEntries, float quantum) {
+        predictionCache = new PredictionCache(maxEntries, quantum);
+    }
+
+    public void enablePredictionCache(int maxEntries) {
+        enablePredictionCache(maxEntries, PredictionCache.DEFAULT_QUANTUM);
+    }
+
+    public void disablePredictionCache() {
+        predictionCache = null;
+    }
+
+    /**
+     * The active cache (for hit/miss counters), or null if caching is off.
+     */
+    public PredictionCache getPredictionCache() {
+        return predictionCache;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets how many batches predictBatch may run at once, each on its own pooled Predictor.
+     * 1 runs every batch on the calling thread. If a model is already loaded it gets a new
+     * predictor pool; running predictions finish on the old one.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        synchronized (swapLock) {
+            if (parallelism == this.parallelism) return;
+            this.parallelism = parallelism;
+            shutdownWorkers();
+            ModelHandle handle = current.get();
+            if (handle != null) install(handle.withPool(new PredictorPool(handle.model, parallelism, batchSize)));
+        }
+    }
+
+    /**
+     * Runs batched inference over rowCount raw feature vectors stored back to back in features
+     * (row r occupies features[r * FEATURE_SIZE .. (r + 1) * FEATURE_SIZE)).
+     * Rows are sent to the model as [N, FEATURE_SIZE] tensors of at most getBatchSize() rows.
+     * When getParallelism() is above 1 and there is more than one batch, batches are spread over
+     * a worker pool; each batch writes its own slice of the result, so output order always
+     * matches input order.
+     * Rows containing non-finite values are not sent to the model and get NaN as their prediction.
+     * Batch predictions are not added to the prediction history.
+     *
+     * @return one prediction (mm) per row, in input order
+     */
+    public float[] predictBatch(float[] features, int rowCount) throws TranslateException {
+        ModelHandle handle = acquire();
+        try {
+            if (rowCount < 0 || features == null || features.length < rowCount * FEATURE_SIZE) {
+                throw new IllegalArgumentException("Feature buffer must hold " + rowCount + " rows of size " + FEATURE_SIZE);
+            }
+            PredictionCache cache = predictionCache;
+            return cache == null
+                    ? predictUncached(handle, features, rowCount)
+                    : predictThroughCache(handle, cache, features, rowCount);
+        } finally {
+            handle.release();
+        }
+    }
+
+    /**
+     * Serves rows from the cache and runs only the misses through the model, in one compacted batch.
+     */
+    private float[] predictThroughCache(ModelHandle handle, PredictionCache cache, float[] features, int rowCount)
+            throws TranslateException {
+        long generation = handle.generation;
+        float[] predictions = new float[rowCount];
+        PredictionCache.Key[] keys = new PredictionCache.Key[rowCount];
+        int[] missRows = new int[rowCount];
+        int missCount = 0;
+        for (int r = 0; r < rowCount; r++) {
+            PredictionCache.Key key = cache.keyOf(features, r * FEATURE_SIZE, generation);
+            Float cached = key == null ? null : cache.get(key);
+            if (cached != null) {
+                predictions[r] = cached;
+            } else {
+                keys[r] = key;
+                missRows[missCount++] = r;
+            }
+        }
+        if (missCount == 0) return predictions;
+
+        float[] missFeatures = new float[missCount * FEATURE_SIZE];
+        for (int m = 0; m < missCount; m++) {
+            System.arraycopy(features, missRows[m] * FEATURE_SIZE, missFeatures, m * FEATURE_SIZE, FEATURE_SIZE);
+        }
+        float[] computed = predictUncached(handle, missFeatures, missCount);
+        for (int m = 0; m < missCount; m++) {
+            int r = missRows[m];
+            predictions[r] = computed[m];
+            if (keys[r] != null && Float.isFinite(computed[m])) cache.put(keys[r], computed[m]);
+        }
+        return predictions;
+    }
+
+    private float[] predictUncached(ModelHandle handle, float[] features, int rowCount) throws TranslateException {
+        float[] predictions = new float[rowCount];
+        int batchSize = this.batchSize;
+        int parallelism = this.parallelism;
+        int batchCount = (rowCount + batchSize - 1) / batchSize;
+        if (parallelism == 1 || batchCount <= 1) {
+            predictRange(handle, features, 0, rowCount, predictions, batchSize);
+            return predictions;
+        }
+
+        // Split into one contiguous range of whole batches per worker
+        int workerCount = Math.min(parallelism, batchCount);
+        int batchesPerWorker = (batchCount + workerCount - 1) / workerCount;
+        ExecutorService executor = workers();
+        List<Future<Void>> futures = new ArrayList<>(workerCount);
+        // Each task holds its own reference on the handle; whoever claims a task first (the task
+        // when it starts, or cancelAll when it never did) is responsible for releasing it
+        List<AtomicBoolean> claims = new ArrayList<>(workerCount);
+        try {
+            for (int start = 0; start < rowCount; start += batchesPerWorker * batchSize) {
+                final int from = start;
+                final int to = Math.min(rowCount, start + batchesPerWorker * batchSize);
+                AtomicBoolean claim = new AtomicBoolean();
+                handle.retain();
+                try {
+                    futures.add(executor.submit(() -> {
+                        if (!claim.compareAndSet(false, true)) return null;
+                        try {
+                            predictRange(handle, features, from, to, predictions, batchSize);
+                        } finally {
+                            handle.release();
+                        }
+                        return null;
+                    }));
+                    claims.add(claim);
+                } catch (RejectedExecutionException e) {
+                    // Worker pool replaced by setParallelism/close meanwhile; run this range here
+                    handle.release();
+                    predictRange(handle, features, from, to, predictions, batchSize);
+                }
+            }
+            for (Future<Void> future : futures) future.get();
+        } catch (InterruptedException e) {
+            cancelAll(handle, futures, claims);
+            Thread.currentThread().interrupt();
+            throw new TranslateException("Interrupted while waiting for parallel prediction", e);
+        } catch (ExecutionException e) {
+            cancelAll(handle, futures, claims);
+            Throwable cause = e.getCause();
+            if (cause instanceof TranslateException) throw (TranslateException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new TranslateException("Parallel prediction failed", cause);
+        } catch (TranslateException | RuntimeException e) {
+            cancelAll(handle, futures, claims);
+            throw e;
+        }
+        return predictions;
+    }
+
+    private static void cancelAll(ModelHandle handle, List<Future<Void>> futures, List<AtomicBoolean> claims) {
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).cancel(true);
+            if (claims.get(i).compareAndSet(false, true)) handle.release();
+        }
+    }
+
+    /**
+     * Predicts rows [from, to) in batches on one borrowed InferenceArena, writing into out[from, to).
+     */
+    private void predictRange(ModelHandle handle, float[] features, int from, int to, float[] out, int batchSize)
+            throws TranslateException {
+        InferenceArena arena = borrowArena(handle);
+        try {
+            runRange(handle, arena, features, from, to, out, batchSize, true);
+        } finally {
+            handle.pool.release(arena);
+        }
+    }
+
+    /**
+     * Predicts rows [from, to) in batches on the given arena; record is false for warm-up runs,
+     * which would otherwise show up in the stage latencies.
+     */
+    private static void runRange(ModelHandle handle, InferenceArena arena, float[] features, int from, int to,
+                                 float[] out, int batchSize, boolean record) throws TranslateException {
+        arena.ensureCapacity(Math.min(batchSize, to - from));
+        float[] scaled = arena.stagingBuffer();
+        float[] result = arena.outputBuffer();
+        for (int start = from; start < to; start += batchSize) {
+            int n = Math.min(batchSize, to - start);
+            long t0 = System.nanoTime();
+            for (int r = 0; r < n; r++) {
+                int src = (start + r) * FEATURE_SIZE;
+                int dst = r * FEATURE_SIZE;
+                boolean finite = true;
+                for (int i = 0; i < FEATURE_SIZE; i++) {
+                    if (!Float.isFinite(features[src + i])) {
+                        finite = false;
+                        break;
+                    }
+                }
+                if (finite) {
+                    handle.transformer.transform(features, src, scaled, dst);
+                    out[start + r] = 0f;
+                } else {
+                    // Sent to the model as zeros, reported as NaN below
+                    Arrays.fill(scaled, dst, dst + FEATURE_SIZE, 0f);
+                    out[start + r] = Float.NaN;
+                }
+            }
+
+            long t1 = System.nanoTime();
+            if (record) PipelineMetrics.record(PipelineMetrics.Stage.SCALE, t1 - t0, n);
+
+            int produced = arena.run(n);
+            long t2 = System.nanoTime();
+            if (record) PipelineMetrics.record(PipelineMetrics.Stage.INFERENCE, t2 - t1, n);
+            if (produced < n) {
+                throw new IllegalStateException("Model returned " + produced + " values for a batch of " + n + " rows");
+            }
+            for (int r = 0; r < n; r++) {
+                if (!Float.isNaN(out[start + r])) out[start + r] = result[r];
+            }
+            if (record) PipelineMetrics.recordSince(PipelineMetrics.Stage.POST_PROCESS, t2, n);
+        }
+    }
+
+    private static InferenceArena borrowArena(ModelHandle handle) throws TranslateException {
+        try {
+            return handle.pool.borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslateException("Interrupted while waiting for a predictor", e);
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread t = new Thread(runnable, "rainfall-predict-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Stops accepting new parallel batches; batches already submitted still run to completion.
+     */
+    private synchronized void shutdownWorkers() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    /**
+     * Takes the model out of service. Predictions already running finish first; the model is
+     * closed when the last of them returns.
+     */
+    public void close() {
+        synchronized (swapLock) {
+            ModelHandle previous = current.getAndSet(null);
+            if (previous != null) previous.retire();
         }
-        predictionHistory.clear();
-        scalerMean = null;
-        scalerScale = null;
+        shutdownWorkers();
+        clearPredictionHistory();
+        PredictionCache cache = predictionCache;
+        if (cache != null) cache.invalidate();
     }
 }
\ No newline at end of file
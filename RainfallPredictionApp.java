@@ -5,16 +5,11 @@ import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.BorderPane;
@@ -39,9 +34,13 @@ public class RainfallPredictionApp extends Application {
     // 4 numeric + 13 state one-hot = 17
     public static final int FEATURE_SIZE = 17;
 
-    private final ObservableList<RainfallData> data = FXCollections.observableArrayList();
-    private final TableView<RainfallData> tableView = new TableView<>();
+    // Loaded rows in columnar form; replaced (not mutated) on load and clear so a running
+    // prediction task keeps writing to the dataset it started with
+    private RainfallDataset dataset = new RainfallDataset();
+    private final TableView<RainfallDataset.Row> tableView = new TableView<>();
     private RainfallModelService modelService;
+    private Button loadModelBtn;
+    private Button loadDataBtn;
     private Button predictBtn;
     private Button clearBtn;
     private Button graphBtn;
@@ -64,6 +63,10 @@ public class RainfallPredictionApp extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Rainfall Prediction");
+
+        // Optional periodic pipeline stage summary, e.g. -Drainfall.metrics.summarySeconds=30
+        long summarySeconds = Long.getLong("rainfall.metrics.summarySeconds", 0L);
+        if (summarySeconds > 0) PipelineMetrics.startSummaryLog(summarySeconds);
         BorderPane root = new BorderPane();
 
         HBox controlPanel = createControlPanel(primaryStage);
@@ -78,6 +81,15 @@ public class RainfallPredictionApp extends Application {
         root.setCenter(centerPanel);
         primaryStage.setScene(new Scene(root, 900, 600));
         primaryStage.show();
+
+        // Load a model bundle at launch, e.g. -Drainfall.model=/models/rainfall (directory, .zip or .onnx);
+        // otherwise start the engine now so the first Load Model is faster
+        String startupModel = System.getProperty("rainfall.model");
+        if (startupModel != null && !startupModel.isEmpty()) {
+            loadModelInBackground(new File(startupModel));
+        } else {
+            RainfallModelService.preloadEngine();
+        }
     }
     
     /**
@@ -106,8 +118,8 @@ public class RainfallPredictionApp extends Application {
     }
     
     private HBox createControlPanel(Stage stage) {
-        Button loadModelBtn = new Button("Load Model");
-        Button loadDataBtn = new Button("Load CSV");
+        loadModelBtn = new Button("Load Model");
+        loadDataBtn = new Button("Load CSV");
         predictBtn = new Button("Predict");
         predictBtn.setDisable(true);
 
@@ -131,8 +143,14 @@ public class RainfallPredictionApp extends Application {
         predictBtn.setOnAction(e -> predict());
         clearBtn.setOnAction(e -> clearData());
         graphBtn.setOnAction(e -> showPredictionGraph());
-        //metricsBtn.setOnAction(e -> showMetricsGraph());
         metricsBtn.setOnAction(e -> {
+            // Overall and per-state metrics for the loaded data once it has actuals and predictions;
+            // otherwise chart a previously saved CSV
+            GroupedMetrics grouped = dataset.hasTarget() ? dataset.evaluateByState() : null;
+            if (grouped != null && grouped.getTotal() != null) {
+                showMetricsGraph(grouped);
+                return;
+            }
             RainfallGraphGenerator.chooseAndShowRainfallChart(
                 (Stage) metricsBtn.getScene().getWindow(),
                 "Actual",         // Replace with the actual column name in your CSV
@@ -164,106 +182,149 @@ public class RainfallPredictionApp extends Application {
     }
 
     private void loadModel(Stage stage) {
-        if (modelService != null) modelService.close();
         FileChooser fileChooser = new FileChooser();
         fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
-        fileChooser.setTitle("Select Model File");
+        fileChooser.setTitle("Select Model File or Bundle");
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("ONNX Models", "*.onnx"),
+                new FileChooser.ExtensionFilter("ONNX Models and Bundles", "*.onnx", "*.zip"),
                 new FileChooser.ExtensionFilter("DJL Models", "*.*")
         );
         File modelFile = fileChooser.showOpenDialog(stage);
+        if (modelFile != null) loadModelInBackground(modelFile);
+    }
 
-        if (modelFile != null) {
+    /**
+     * Loads and warms up a model file or bundle (see ModelBundle) on a background thread. A model
+     * that is already loaded keeps serving predictions until the new one is swapped in, and stays
+     * if the load fails.
+     */
+    private void loadModelInBackground(File modelFile) {
+        if (modelService == null) {
             modelService = new RainfallModelService();
-            String error = modelService.loadModel(modelFile);
+            // Optional prediction cache, e.g. -Drainfall.cache.size=100000
+            int cacheSize = Integer.getInteger("rainfall.cache.size", 0);
+            if (cacheSize > 0) {
+                if (cacheSize < PredictionCache.SEGMENTS) {
+                    System.err.println("rainfall.cache.size=" + cacheSize + " is below the minimum of "
+                            + PredictionCache.SEGMENTS + "; using " + PredictionCache.SEGMENTS);
+                    cacheSize = PredictionCache.SEGMENTS;
+                }
+                modelService.enablePredictionCache(cacheSize);
+            }
+        }
+        RainfallModelService service = modelService;
+        String previousStatus = modelStatus.getText();
+        String previousStyle = modelStatus.getStyle();
+        loadModelBtn.setDisable(true);
+        modelStatus.setText(service.isLoaded()
+                ? previousStatus + " - loading " + modelFile.getName() + "..."
+                : "Model: Loading (" + modelFile.getName() + ")...");
+
+        Task<String> loadTask = new Task<>() {
+            @Override
+            protected String call() {
+                return service.loadModel(modelFile);
+            }
+        };
+        loadTask.setOnSucceeded(e -> {
+            loadModelBtn.setDisable(false);
+            String error = loadTask.getValue();
             if (error == null) {
                 modelStatus.setText("Model: Loaded (" + modelFile.getName() + ")");
                 modelStatus.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
                 showAlert("Success", "Model loaded successfully!");
                 enablePredictIfReady();
             } else {
-                modelStatus.setText("Model: Error - See console");
+                if (service.isLoaded()) {
+                    modelStatus.setText(previousStatus);
+                    modelStatus.setStyle(previousStyle);
+                } else {
+                    modelStatus.setText("Model: Error - See console");
+                }
                 showAlert("Model Load Error", error);
             }
-        }
+        });
+        loadTask.setOnFailed(e -> {
+            loadModelBtn.setDisable(false);
+            if (service.isLoaded()) {
+                modelStatus.setText(previousStatus);
+                modelStatus.setStyle(previousStyle);
+            } else {
+                modelStatus.setText("Model: Error - See console");
+            }
+            showAlert("Model Load Error", "Model load failed: " + loadTask.getException());
+        });
+
+        Thread loader = new Thread(loadTask, "rainfall-model-load");
+        loader.setDaemon(true);
+        loader.start();
     }
 
     private void loadCSV(Stage stage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
         fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz"));
         File file = fileChooser.showOpenDialog(stage);
 
-        if (file != null) {
-            CsvDataLoader csvLoader = new CsvDataLoader();
-            CsvDataLoader.CsvResult result = csvLoader.parseCsv(file);
-
-            // Find all column indices
-            int heightIdx = -1, minMeanTempIdx = -1, maxMeanTempIdx = -1, meanRelHumIdx = -1, stateIdx = -1, targetIdx = -1;
-            List<String> colNames = result.columns;
-            for (int i = 0; i < colNames.size(); i++) {
-                String col = colNames.get(i).trim();
-                if (col.equalsIgnoreCase("height")) heightIdx = i;
-                else if (col.equalsIgnoreCase("minMeanTemp")) minMeanTempIdx = i;
-                else if (col.equalsIgnoreCase("maxMeanTemp")) maxMeanTempIdx = i;
-                else if (col.equalsIgnoreCase("meanRelHum")) meanRelHumIdx = i;
-                else if (col.equalsIgnoreCase("state")) stateIdx = i;
-                else if (col.equalsIgnoreCase("rainfall")) targetIdx = i;
-            }
-            if (heightIdx == -1 || minMeanTempIdx == -1 || maxMeanTempIdx == -1 || meanRelHumIdx == -1 || stateIdx == -1) {
-                showAlert("Error", "CSV missing one or more required columns.");
-                return;
-            }
-            List<RainfallData> processedRows = new ArrayList<>();
-            for (RainfallData row : result.rows) {
-                // Build the feature vector in the ONNX order (only 17 features)
-                List<Float> rowData = new ArrayList<>();
-                rowData.add(row.getValue(heightIdx));
-                rowData.add(row.getValue(minMeanTempIdx));
-                rowData.add(row.getValue(maxMeanTempIdx));
-                rowData.add(row.getValue(meanRelHumIdx));
-                String stateName = row.originalState != null ? row.originalState : "Unknown";
-                // One-hot for state (ONNX order!)
-                for (String s : STATE_LIST) {
-                    rowData.add(stateName.equals(s) ? 1.0f : 0.0f);
-                }
-                // Keep actual target for metrics graph
-                processedRows.add(new RainfallData(rowData, stateName, row.rainfallTarget));
+        if (file == null) return;
+
+        // Parsing (or reading the sidecar cache) runs off the FX thread; the table is filled once it is done
+        Task<RainfallDataset> loadTask = new Task<>() {
+            @Override
+            protected RainfallDataset call() {
+                // Rows arrive already in ONNX feature order (17 features, one-hot state in ONNX order);
+                // missing required columns are reported by the loader
+                return new CsvDataLoader().loadDataset(file);
             }
+        };
+        loadTask.setOnSucceeded(e -> {
+            loadDataBtn.setDisable(false);
+            RainfallDataset loaded = loadTask.getValue();
+            if (loaded == null) return;
             // Build table headers
             List<String> featureHeaders = new ArrayList<>(Arrays.asList(
                 "height", "minMeanTemp", "maxMeanTemp", "meanRelHum"
             ));
             for (String s : STATE_LIST) featureHeaders.add("state_" + s);
             setupTableColumns(featureHeaders);
-            data.clear();
-            data.addAll(processedRows);
-            tableView.setItems(data);
-            showAlert("Data Loaded", "Loaded " + data.size() + " records");
+            dataset = loaded;
+            tableView.setItems(FXCollections.observableList(dataset.rowList()));
+            showAlert("Data Loaded", "Loaded " + dataset.size() + " records");
             dataLoaded = true;
             clearBtn.setDisable(false);
             saveCsvBtn.setDisable(false);
             metricsBtn.setDisable(false);
             graphBtn.setDisable(false);
             enablePredictIfReady();
-        }
+        });
+        loadTask.setOnFailed(e -> {
+            loadDataBtn.setDisable(false);
+            showAlert("CSV Load Error", "Could not load " + file.getName() + ": " + loadTask.getException());
+        });
+
+        loadDataBtn.setDisable(true);
+        Thread loader = new Thread(loadTask, "rainfall-csv-load");
+        loader.setDaemon(true);
+        loader.start();
     }
 
     private void setupTableColumns(List<String> headers) {
         tableView.getColumns().clear();
         for (int i = 0; i < Math.min(headers.size(), FEATURE_SIZE); i++) {
             final int colIndex = i;
-            TableColumn<RainfallData, String> col = new TableColumn<>(headers.get(i));
+            TableColumn<RainfallDataset.Row, String> col = new TableColumn<>(headers.get(i));
             col.setCellValueFactory(cellData -> {
                 float v = cellData.getValue().getValue(colIndex);
                 return new SimpleStringProperty(Float.isFinite(v) ? String.format("%.2f", v) : "-");
             });
             tableView.getColumns().add(col);
         }
-        TableColumn<RainfallData, String> predictionCol = new TableColumn<>("Prediction");
-        predictionCol.setCellValueFactory(cellData -> cellData.getValue().predictionProperty());
+        TableColumn<RainfallDataset.Row, String> predictionCol = new TableColumn<>("Prediction");
+        predictionCol.setCellValueFactory(cellData -> {
+            float p = cellData.getValue().getPrediction();
+            return new SimpleStringProperty(Float.isFinite(p) ? String.format("%.2f", p) : "Pending...");
+        });
         tableView.getColumns().add(predictionCol);
     }
 
@@ -276,47 +337,54 @@ public class RainfallPredictionApp extends Application {
         progressBar.setVisible(true);
         progressBar.setProgress(0);
 
+        RainfallDataset rows = dataset;
+        // Results reach the table in bounded batches once per pulse; failures become one summary alert
+        FxUpdateCoalescer updates = new FxUpdateCoalescer(rows::setPredictions, tableView::refresh);
         Task<Void> predictionTask = new Task<>() {
             @Override
             protected Void call() {
-                int totalRows = data.size();
-                for (int i = 0; i < totalRows; i++) {
-                    RainfallData row = data.get(i);
+                int totalRows = rows.size();
+                // Enough rows per call for every parallel worker to get a full batch
+                int batchSize = modelService.getBatchSize() * modelService.getParallelism();
+                float[] features = new float[Math.min(batchSize, totalRows) * FEATURE_SIZE];
+                for (int start = 0; start < totalRows; start += batchSize) {
+                    int count = Math.min(batchSize, totalRows - start);
+                    rows.copyFeatures(start, count, features);
                     try {
-                        String prediction = modelService.predict(row.getFeatures());
-                        final String formatted = String.format("%.2f", Double.parseDouble(prediction.replaceAll("[^0-9.\\-Ee]", "")));
-                        Platform.runLater(() -> row.setPrediction(formatted));
+                        updates.submit(start, modelService.predictBatch(features, count), count);
                     } catch (Exception e) {
-                        Platform.runLater(() -> showAlert("Error", "Prediction failed: " + e.getMessage()));
+                        updates.fail(count, e);
                     }
-                    updateProgress(i + 1, totalRows);
+                    updateProgress(start + count, totalRows);
                 }
-                Platform.runLater(() -> {
-                    saveCsvBtn.setDisable(false);
-                    metricsBtn.setDisable(false);
-                    graphBtn.setDisable(false);
-                });
                 return null;
             }
         };
 
         progressBar.progressProperty().bind(predictionTask.progressProperty());
 
-        predictionTask.setOnSucceeded(e -> {
+        predictionTask.setOnSucceeded(e -> updates.finish(() -> {
             progressBar.setVisible(false);
             predictBtn.setDisable(false);
-        });
-        predictionTask.setOnFailed(e -> {
+            saveCsvBtn.setDisable(false);
+            metricsBtn.setDisable(false);
+            graphBtn.setDisable(false);
+            String errors = updates.errorSummary();
+            if (errors != null) showAlert("Prediction Error", errors);
+        }));
+        predictionTask.setOnFailed(e -> updates.finish(() -> {
             progressBar.setVisible(false);
             predictBtn.setDisable(false);
             showAlert("Prediction Error", "Prediction task failed.");
-        });
+        }));
 
+        updates.start();
         new Thread(predictionTask).start();
     }
 
     private void clearData() {
-        data.clear();
+        dataset = new RainfallDataset();
+        tableView.setItems(FXCollections.observableArrayList());
         dataLoaded = false;
         clearBtn.setDisable(true);
         predictBtn.setDisable(true);
@@ -325,7 +393,7 @@ public class RainfallPredictionApp extends Application {
         metricsBtn.setDisable(true);
         tableView.getColumns().clear();
         if (modelService != null) {
-            modelService.getPredictionHistory().clear();
+            modelService.clearPredictionHistory();
         }
     }
 
@@ -334,7 +402,7 @@ public class RainfallPredictionApp extends Application {
     }
 
     private boolean isReadyForPrediction() {
-        return modelService != null && modelService.isLoaded() && dataLoaded && !data.isEmpty();
+        return modelService != null && modelService.isLoaded() && dataLoaded && !dataset.isEmpty();
     }
 
     @Override
@@ -354,46 +422,40 @@ public class RainfallPredictionApp extends Application {
     }
 
     // --- Metrics Graph Implementation with PredictionMetrics ---
-    private void showMetricsGraph() {
-        if (data.isEmpty()) {
+    /**
+     * Shows the metrics graph and the overall and per-state metrics, computed by
+     * dataset.evaluateByState() over rows that have both an actual value and a prediction.
+     */
+    private void showMetricsGraph(GroupedMetrics grouped) {
+        if (dataset.isEmpty()) {
             showAlert("No Data", "No data to plot.");
             return;
         }
-        // Collect actuals and predicted values for rows that have both
-        List<Double> actuals = new ArrayList<>();
-        List<Double> preds = new ArrayList<>();
-        for (RainfallData row : data) {
-            if (row.rainfallTarget != null && isNumeric(row.getPrediction())) {
-                actuals.add(row.rainfallTarget.doubleValue());
-                preds.add(Double.parseDouble(row.getPrediction().replaceAll("[^0-9.\\-Ee]", "")));
-            }
-        }
-        if (actuals.isEmpty()) {
+        PredictionMetrics metrics = grouped.getTotal();
+        if (metrics == null) {
             showAlert("No Data", "No actual vs. predicted data to evaluate.");
             return;
         }
-        // Use your PredictionMetrics class for evaluation
-        PredictionMetrics metrics = PredictionMetrics.evaluate(actuals, preds);
 
         // Show the metrics graph window with metrics
-        MetricsGraphWindow metricsGraph = new MetricsGraphWindow(data);
+        MetricsGraphWindow metricsGraph = new MetricsGraphWindow(dataset);
         metricsGraph.show();
 
         // Show metrics in a dialog
         String msg = String.format(
             "RMSE: %.4f\nMAE: %.4f\nMAPE: %.2f%%\nMedian Abs Error: %.4f\nExplained Variance: %.4f",
             metrics.rmse, metrics.mae, metrics.mape, metrics.medianAbsError, metrics.explainedVariance
-        );
+        ) + perStateSection(grouped);
         showAlert("Prediction Metrics", msg);
     }
 
     // --- Prediction Graph ---
     private void showPredictionGraph() {
-        if (data.isEmpty()) {
+        if (dataset.isEmpty()) {
             showAlert("No Data", "No predicted data to plot.");
             return;
         }
-        PredictionGraphWindow predictionGraph = new PredictionGraphWindow(data);
+        PredictionGraphWindow predictionGraph = new PredictionGraphWindow(dataset);
         predictionGraph.show();
     }
 
@@ -401,7 +463,9 @@ public class RainfallPredictionApp extends Application {
     private void saveAsCsv() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save as CSV");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("Gzipped CSV Files", "*.csv.gz"));
         File file = fileChooser.showSaveDialog(tableView.getScene().getWindow());
         if (file != null) {
             List<String> featureHeaders = new ArrayList<>(Arrays.asList(
@@ -412,7 +476,7 @@ public class RainfallPredictionApp extends Application {
             featureHeaders.add("Actual");
             featureHeaders.add("Prediction");
             try {
-                CsvExportUtil.saveAsCsv(data, featureHeaders, file.getAbsolutePath());
+                CsvExportUtil.saveAsCsv(dataset, featureHeaders, file.getAbsolutePath());
                 showAlert("Success", "CSV saved to: " + file.getAbsolutePath());
             } catch (Exception ex) {
                 showAlert("Error", "Failed to save CSV: " + ex.getMessage());
@@ -424,21 +488,32 @@ public class RainfallPredictionApp extends Application {
     private void compareMetricsFromCsv(Stage stage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select CSV File for Metrics Comparison");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz"));
         File file = fileChooser.showOpenDialog(stage);
         if (file == null) return;
 
-        List<Double> actuals = new ArrayList<>();
-        List<Double> preds = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        double[] actuals = new double[1024];
+        double[] preds = new double[1024];
+        byte[] states = new byte[1024];
+        int count = 0;
+        try (BufferedReader reader = CompressedFiles.newReader(file)) {
             String header = reader.readLine(); // skip header
             String line;
-            int actualIdx = -2, predIdx = -1;
+            int actualIdx = -2, predIdx = -1, stateIdx = -1;
             String[] headers = header.split(",");
+            // One-hot "state_<name>" columns, as written by Save as CSV
+            int[] oneHotIdx = new int[STATE_LIST.size()];
+            Arrays.fill(oneHotIdx, -1);
             // Find indices for "Actual" and "Prediction" (robust to order)
             for (int i = 0; i < headers.length; i++) {
-                if (headers[i].trim().equalsIgnoreCase("Actual")) actualIdx = i;
-                if (headers[i].trim().equalsIgnoreCase("Prediction")) predIdx = i;
+                String h = headers[i].trim();
+                if (h.equalsIgnoreCase("Actual")) actualIdx = i;
+                if (h.equalsIgnoreCase("Prediction")) predIdx = i;
+                if (h.equalsIgnoreCase("state")) stateIdx = i;
+                if (h.startsWith("state_")) {
+                    int ordinal = FeatureVectorUtil.stateOrdinal(h.substring("state_".length()));
+                    if (ordinal >= 0) oneHotIdx[ordinal] = i;
+                }
             }
             if (actualIdx < 0 || predIdx < 0) {
                 showAlert("Error", "CSV must have 'Actual' and 'Prediction' columns.");
@@ -447,70 +522,66 @@ public class RainfallPredictionApp extends Application {
             while ((line = reader.readLine()) != null) {
                 String[] parts = line.split(",");
                 if (parts.length <= Math.max(actualIdx, predIdx)) continue;
-                String actualStr = parts[actualIdx];
-                String predStr = parts[predIdx];
-                if (isNumeric(actualStr) && isNumeric(predStr)) {
-                    actuals.add(Double.parseDouble(actualStr));
-                    preds.add(Double.parseDouble(predStr));
+                double actual = CsvRowParser.parseSafeDouble(parts[actualIdx]);
+                double pred = CsvRowParser.parseSafeDouble(parts[predIdx]);
+                if (Double.isFinite(actual) && Double.isFinite(pred)) {
+                    if (count == actuals.length) {
+                        actuals = Arrays.copyOf(actuals, count * 2);
+                        preds = Arrays.copyOf(preds, count * 2);
+                        states = Arrays.copyOf(states, count * 2);
+                    }
+                    actuals[count] = actual;
+                    preds[count] = pred;
+                    states[count] = (byte) stateOrdinalOf(parts, stateIdx, oneHotIdx);
+                    count++;
                 }
             }
-            if (actuals.isEmpty()) {
+            if (count == 0) {
                 showAlert("No valid data", "The CSV file does not contain valid actual and prediction columns.");
                 return;
             }
-            PredictionMetrics metrics = PredictionMetrics.evaluate(actuals, preds);
+            GroupedMetrics grouped = MetricsEngine.evaluateByGroup(actuals, preds, states, STATE_LIST.size(), count);
+            PredictionMetrics metrics = grouped.getTotal();
             String msg = String.format(
                 "RMSE: %.4f\nMAE: %.4f\nMAPE: %.2f%%\nMedian Abs Error: %.4f\nExplained Variance: %.4f",
                 metrics.rmse, metrics.mae, metrics.mape, metrics.medianAbsError, metrics.explainedVariance
-            );
+            ) + perStateSection(grouped);
             showAlert("Metrics from CSV", msg);
         } catch (Exception ex) {
             showAlert("Error", "Failed to read or parse CSV: " + ex.getMessage());
         }
     }
+
+    // State ordinal of a CSV row from a "state" column or one-hot columns; -1 if unknown
+    private static int stateOrdinalOf(String[] parts, int stateIdx, int[] oneHotIdx) {
+        if (stateIdx >= 0 && stateIdx < parts.length) return FeatureVectorUtil.stateOrdinal(parts[stateIdx].trim());
+        for (int s = 0; s < oneHotIdx.length; s++) {
+            int i = oneHotIdx[s];
+            if (i >= 0 && i < parts.length && CsvRowParser.parseSafeFloat(parts[i]) == 1.0f) return s;
+        }
+        return -1;
+    }
+
+    private static String perStateSection(GroupedMetrics grouped) {
+        String perState = grouped.formatGroups(STATE_LIST.toArray(new String[0]));
+        return perState.isEmpty() ? "" : "\n\nPer state:\n" + perState;
+    }
     // different implementation of reading & generating chart
     private void showAndSaveMetricsChartWindow() {
         // Prepare data
-        List<String> labels = new ArrayList<>();
-        List<Double> actualValues = new ArrayList<>();
-        List<Double> predictedValues = new ArrayList<>();
-        int idx = 1;
-        for (RainfallData row : data) {
-            if (row.rainfallTarget != null && isNumeric(row.getPrediction())) {
-                labels.add(String.valueOf(idx++));
-                actualValues.add(row.rainfallTarget.doubleValue());
-                predictedValues.add(Double.parseDouble(row.getPrediction().replaceAll("[^0-9.\\-Ee]", "")));
-            }
-        }
-        if (labels.isEmpty()) {
+        double[] actualValues = new double[dataset.size()];
+        double[] predictedValues = new double[dataset.size()];
+        int pairs = dataset.collectActualVsPredicted(actualValues, predictedValues);
+        if (pairs == 0) {
             showAlert("No Data", "No actual vs. predicted data to plot.");
             return;
         }
 
-        // Set up chart
-        CategoryAxis xAxis = new CategoryAxis();
-        xAxis.setLabel("Index");
-        xAxis.setCategories(FXCollections.observableArrayList(labels));
-
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Rainfall (mm)");
-
-        LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
+        // Set up chart (1-based index, series downsampled for display)
+        ZoomableLineChart lineChart = new ZoomableLineChart("Index", "Rainfall (mm)", 1);
         lineChart.setTitle("Actual vs Predicted Rainfall");
-
-        XYChart.Series<String, Number> actualSeries = new XYChart.Series<>();
-        actualSeries.setName("Actual Rainfall");
-        for (int i = 0; i < labels.size(); i++) {
-            actualSeries.getData().add(new XYChart.Data<>(labels.get(i), actualValues.get(i)));
-        }
-
-        XYChart.Series<String, Number> predictedSeries = new XYChart.Series<>();
-        predictedSeries.setName("Predicted Rainfall");
-        for (int i = 0; i < labels.size(); i++) {
-            predictedSeries.getData().add(new XYChart.Data<>(labels.get(i), predictedValues.get(i)));
-        }
-
-        lineChart.getData().addAll(actualSeries, predictedSeries);
+        lineChart.addSeries("Actual Rainfall", actualValues, pairs);
+        lineChart.addSeries("Predicted Rainfall", predictedValues, pairs);
 
         // Show in new window
         Stage chartStage = new Stage();
@@ -534,41 +605,57 @@ public class RainfallPredictionApp extends Application {
         }
     }
     
-    private boolean isNumeric(String str) {
-        if (str == null) return false;
-        try {
-            Double.parseDouble(str.replaceAll("[^0-9.\\-Ee]", ""));
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
     public static class RainfallData {
-        private final List<Float> rowData;
+        private final float[] rowData;
+        // NaN until predicted; the property only carries the display text
+        private float predictionValue = Float.NaN;
         private final StringProperty prediction = new SimpleStringProperty("Pending...");
         public final String originalState;
         public final Float rainfallTarget;
 
-        public RainfallData(List<Float> rowData, String originalState, Float rainfallTarget) {
+        public RainfallData(float[] rowData, String originalState, Float rainfallTarget) {
             this.rowData = rowData;
             this.originalState = originalState;
             this.rainfallTarget = rainfallTarget;
         }
 
+        public RainfallData(List<Float> rowData, String originalState, Float rainfallTarget) {
+            this(FeatureVectorUtil.toArray(rowData), originalState, rainfallTarget);
+        }
+
+        /**
+         * Feature vector as a List view over the primitive array (boxes on access).
+         */
         public List<Float> getFeatures() {
+            return FeatureVectorUtil.asList(rowData);
+        }
+
+        public float[] getFeatureArray() {
             return rowData;
         }
 
-        public Float getValue(int index) {
-            return index < rowData.size() ? rowData.get(index) : 0f;
+        public float getValue(int index) {
+            return index < rowData.length ? rowData[index] : 0f;
         }
 
         public String getPrediction() {
             return prediction.get();
         }
 
+        public float getPredictionValue() {
+            return predictionValue;
+        }
+
+        public void setPrediction(float value) {
+            predictionValue = value;
+            prediction.set(Float.isFinite(value) ? String.format("%.2f", value) : "NaN");
+        }
+
+        /**
+         * Sets a prediction read as text (e.g. a CSV "Prediction" column); the number is parsed once here.
+         */
         public void setPrediction(String value) {
+            predictionValue = CsvRowParser.parseSafeFloat(value);
             prediction.set(value);
         }
 
@@ -0,0 +1,73 @@
+package rainfallPrediction;
+
+/**
+ * A bounded block of parsed CSV rows, handed to a consumer while the rest of the file is still
+ * being read. Row r's 17 raw features occupy features[r * FEATURE_SIZE .. (r + 1) * FEATURE_SIZE).
+ * The parser reuses the same chunk for the next block once the consumer returns, so consumers
+ * must copy anything they keep.
+ */
+public class RowChunk {
+
+    public static final int FEATURE_SIZE = RainfallModelService.FEATURE_SIZE;
+
+    public final int capacity;
+    public final float[] features;
+    public final String[] states;
+    // One-hot position of each row's state (-1 if unknown); see encodeStates()
+    public final int[] stateOrdinals;
+    // NaN when the row has no parseable target (or the file has no target column, see hasTarget)
+    public final float[] targets;
+    // Prediction column text, null when absent
+    public final String[] predictions;
+
+    public int size;
+    public boolean hasTarget;
+    // Index of the first row of this chunk among all valid rows of the file
+    public long firstRow;
+
+    public RowChunk(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Chunk capacity must be at least 1, got " + capacity);
+        this.capacity = capacity;
+        this.features = new float[capacity * FEATURE_SIZE];
+        this.states = new String[capacity];
+        this.stateOrdinals = new int[capacity];
+        this.targets = new float[capacity];
+        this.predictions = new String[capacity];
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Independent copy of the filled rows, sized to fit them.
+     */
+    public RowChunk copy() {
+        RowChunk copy = new RowChunk(Math.max(1, size));
+        System.arraycopy(features, 0, copy.features, 0, size * FEATURE_SIZE);
+        System.arraycopy(states, 0, copy.states, 0, size);
+        System.arraycopy(stateOrdinals, 0, copy.stateOrdinals, 0, size);
+        System.arraycopy(targets, 0, copy.targets, 0, size);
+        System.arraycopy(predictions, 0, copy.predictions, 0, size);
+        copy.size = size;
+        copy.hasTarget = hasTarget;
+        copy.firstRow = firstRow;
+        return copy;
+    }
+
+    /**
+     * Fills in the one-hot state columns of every row from stateOrdinals. Parsers write only the
+     * numeric features per row and encode the states once the chunk is complete.
+     */
+    public void encodeStates() {
+        for (int r = 0; r < size; r++) {
+            FeatureVectorUtil.writeStateFeatures(features, r * FEATURE_SIZE, stateOrdinals[r]);
+        }
+    }
+
+    public void clear() {
+        firstRow += size;
+        size = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package rainfallPrediction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary cache of parsed scaler parameters, so a model bundle that was loaded before skips CSV
+ * parsing on the next start.
+ *
+ * Layout (little-endian): magic, version, the size and mtime of each source file the parameters
+ * came from, the value count, then mean and scale as float[count] each.
+ * The cache is used only if every source still has the recorded size and mtime; otherwise it is
+ * ignored and rewritten. Like DatasetSidecar it is disabled by -Drainfall.sidecar=false.
+ */
+public class ScalerSidecar {
+
+    public static final String SUFFIX = ".rfsc";
+
+    private static final int MAGIC = 0x43534652; // "RFSC"
+    private static final int VERSION = 1;
+    // A scaler is a few dozen floats; anything this large is not one of ours
+    private static final int MAX_BYTES = 1 << 20;
+
+    /**
+     * Parsed scaler parameters, one value per feature.
+     */
+    public static class Scaler {
+        public final float[] mean;
+        public final float[] scale;
+        // Read from the binary cache rather than parsed
+        public final boolean cached;
+
+        Scaler(float[] mean, float[] scale, boolean cached) {
+            this.mean = mean;
+            this.scale = scale;
+            this.cached = cached;
+        }
+    }
+
+    private ScalerSidecar() {
+    }
+
+    /**
+     * Loads the cache if it exists and still matches the sources.
+     *
+     * @return the cached parameters, or null if there is no usable cache
+     */
+    public static Scaler read(File cache, File... sources) {
+        if (!DatasetSidecar.isEnabled() || !cache.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+            int headerBytes = 4 + 4 + sources.length * 16 + 4;
+            if (channel.size() < headerBytes || channel.size() > MAX_BYTES) return null;
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) return null;
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            for (File source : sources) {
+                if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified()) {
+                    DebugLog.println("ScalerSidecar: " + cache + " is stale");
+                    return null;
+                }
+            }
+            int count = buffer.getInt();
+            if (count < 0 || buffer.remaining() < count * 8L) return null;
+            float[] mean = new float[count];
+            float[] scale = new float[count];
+            buffer.asFloatBuffer().get(mean);
+            buffer.position(buffer.position() + count * 4);
+            buffer.asFloatBuffer().get(scale);
+            return new Scaler(mean, scale, true);
+        } catch (IOException | RuntimeException e) {
+            // An unreadable cache just means parsing the CSVs again
+            DebugLog.println("ScalerSidecar: ignoring " + cache + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache under a temporary name and moves it into place. Failures (e.g. a read-only
+     * bundle directory) are logged and otherwise ignored.
+     */
+    public static void write(File cache, Scaler scaler, File... sources) {
+        if (!DatasetSidecar.isEnabled()) return;
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(cache.getAbsoluteFile().getParentFile().toPath(), cache.getName(), ".tmp");
+            int count = scaler.mean.length;
+            ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + sources.length * 16 + 4 + count * 8).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            for (File source : sources) buffer.putLong(source.length()).putLong(source.lastModified());
+            buffer.putInt(count);
+            for (float v : scaler.mean) buffer.putFloat(v);
+            for (float v : scaler.scale) buffer.putFloat(v);
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(tmp, cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            DebugLog.println("ScalerSidecar: could not write " + cache + ": " + e);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+}
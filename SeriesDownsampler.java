@@ -0,0 +1,75 @@
+package rainfallPrediction;
+
+/**
+ * Reduces a series to a fixed number of points for plotting, using Largest-Triangle-Three-Buckets
+ * (Steinarsson, 2013). The x value of each point is its index, so only the y values are needed.
+ * The first and last points are always kept. Each bucket in between keeps the point that forms the
+ * largest triangle with the previously kept point and the average of the next bucket, which keeps
+ * peaks and dips visible where plain striding would drop them.
+ */
+public final class SeriesDownsampler {
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * Indices of at most threshold points of values[from, to) that best preserve its shape, in
+     * ascending order. If the range already has threshold points or fewer, every index is returned.
+     */
+    public static int[] lttb(double[] values, int from, int to, int threshold) {
+        if (from < 0 || to > values.length || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + values.length);
+        if (threshold < 3) throw new IllegalArgumentException("Threshold must be at least 3, got " + threshold);
+        int n = to - from;
+        if (n <= threshold) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = from + i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int out = 0;
+        selected[out++] = from;
+        // Buckets cover the points between the fixed first and last ones
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        for (int b = 0; b < threshold - 2; b++) {
+            int bucketStart = from + 1 + (int) (b * bucketSize);
+            int bucketEnd = from + 1 + (int) ((b + 1) * bucketSize);
+
+            // Average of the next bucket (or the last point for the final bucket)
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(from + 1 + (int) ((b + 2) * bucketSize), to);
+            if (b == threshold - 3) {
+                nextStart = to - 1;
+                nextEnd = to;
+            }
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += i;
+                avgY += values[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double ax = a;
+            double ay = values[a];
+            double maxArea = -1;
+            int best = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                // Twice the triangle area; the factor doesn't change the maximum
+                double area = Math.abs((ax - avgX) * (values[i] - ay) - (ax - i) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            selected[out++] = best;
+            a = best;
+        }
+        selected[out] = to - 1;
+        return selected;
+    }
+}
@@ -25,23 +25,41 @@ public class StandardScalerUtil {
         return arr;
     }
 
+    /**
+     * Applies standard scaling to raw[rawOffset .. rawOffset + length), writing into
+     * out[outOffset ..]. No allocation and no debug output; used on the inference path.
+     */
+    public static void scale(float[] raw, int rawOffset, int length, float[] mean, float[] scale, float[] out, int outOffset) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (raw[rawOffset + i] - mean[i]) / scale[i];
+        }
+    }
+
+    /**
+     * Applies standard scaling to a primitive feature vector using provided mean and scale.
+     */
+    public static float[] scale(float[] raw, float[] mean, float[] scale) {
+        float[] out = new float[raw.length];
+        scale(raw, 0, raw.length, mean, scale, out, 0);
+        return out;
+    }
+
     /**
      * Applies standard scaling to the feature vector using provided mean and scale.
-     * Prints debug information for easier matching with Python output.
+     * Prints debug information for easier matching with Python output when DebugLog is enabled.
      */
     public static float[] scale(List<Float> raw, float[] mean, float[] scale) {
-        float[] out = new float[raw.size()];
-        for (int i = 0; i < raw.size(); i++) {
-            out[i] = (raw.get(i) - mean[i]) / scale[i];
-        }
+        float[] out = scale(FeatureVectorUtil.toArray(raw), mean, scale);
 
         // === DEBUG: Print each scaling operation ===
-        System.out.println("STANDARD SCALER DEBUG:");
-        for (int i = 0; i < raw.size(); i++) {
-            System.out.printf(
-                "  index %d: raw=%.6f, mean=%.6f, scale=%.6f, result=%.6f%n",
-                i, raw.get(i), mean[i], scale[i], out[i]
-            );
+        if (DebugLog.isEnabled()) {
+            System.out.println("STANDARD SCALER DEBUG:");
+            for (int i = 0; i < raw.size(); i++) {
+                System.out.printf(
+                    "  index %d: raw=%.6f, mean=%.6f, scale=%.6f, result=%.6f%n",
+                    i, raw.get(i), mean[i], scale[i], out[i]
+                );
+            }
         }
         return out;
     }
@@ -0,0 +1,144 @@
+package rainfallPrediction;
+
+/**
+ * Single-pass, O(1)-memory version of PredictionMetrics: feed (actual, predicted) pairs as they
+ * arrive and read RMSE, MAE, MAPE and explained variance at any point, with the same formulas.
+ * Means and variances of the actuals and residuals are updated with Welford's algorithm, and
+ * partial accumulators (e.g. one per worker) are combined with Chan's parallel merge, so no
+ * second pass over the data is needed. The median absolute error comes from a QuantileSketch and
+ * is accurate to within its relative accuracy (0.5% by default).
+ * Not thread-safe; give each thread its own accumulator and merge them.
+ */
+public class StreamingMetricsAccumulator {
+
+    private final QuantileSketch absErrors;
+
+    private long count;
+    private double sumSq;
+    private double sumAbs;
+    private double sumAbsPct;
+    private long countNonZeroActual;
+    private double meanActual;
+    private double m2Actual;
+    private double meanResidual;
+    private double m2Residual;
+    private long skipped;
+
+    public StreamingMetricsAccumulator() {
+        this(new QuantileSketch());
+    }
+
+    public StreamingMetricsAccumulator(double medianRelativeAccuracy) {
+        this(new QuantileSketch(medianRelativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKETS));
+    }
+
+    private StreamingMetricsAccumulator(QuantileSketch sketch) {
+        this.absErrors = sketch;
+    }
+
+    /**
+     * Adds one pair. Pairs where either value is not finite are counted as skipped and ignored.
+     */
+    public void add(double actual, double predicted) {
+        if (!Double.isFinite(actual) || !Double.isFinite(predicted)) {
+            skipped++;
+            return;
+        }
+        double err = predicted - actual;
+        double residual = actual - predicted;
+        count++;
+        sumSq += err * err;
+        sumAbs += Math.abs(err);
+        if (actual != 0) {
+            sumAbsPct += Math.abs(err / actual);
+            countNonZeroActual++;
+        }
+        double d = actual - meanActual;
+        meanActual += d / count;
+        m2Actual += d * (actual - meanActual);
+        d = residual - meanResidual;
+        meanResidual += d / count;
+        m2Residual += d * (residual - meanResidual);
+        absErrors.add(err);
+    }
+
+    /**
+     * Adds pairs [from, to) of two parallel arrays.
+     */
+    public void addAll(float[] actuals, float[] predictions, int from, int to) {
+        for (int i = from; i < to; i++) add(actuals[i], predictions[i]);
+    }
+
+    /**
+     * Adds the first n pairs of two parallel arrays.
+     */
+    public void addAll(double[] actuals, double[] predictions, int n) {
+        for (int i = 0; i < n; i++) add(actuals[i], predictions[i]);
+    }
+
+    /**
+     * Folds other's pairs into this accumulator (other is left unchanged).
+     */
+    public StreamingMetricsAccumulator merge(StreamingMetricsAccumulator other) {
+        if (other.count > 0) {
+            long n = count + other.count;
+            double delta = other.meanActual - meanActual;
+            m2Actual += other.m2Actual + delta * delta * count * other.count / n;
+            meanActual += delta * other.count / n;
+            delta = other.meanResidual - meanResidual;
+            m2Residual += other.m2Residual + delta * delta * count * other.count / n;
+            meanResidual += delta * other.count / n;
+            count = n;
+            sumSq += other.sumSq;
+            sumAbs += other.sumAbs;
+            sumAbsPct += other.sumAbsPct;
+            countNonZeroActual += other.countNonZeroActual;
+            absErrors.merge(other.absErrors);
+        }
+        skipped += other.skipped;
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public long getSkipped() { return skipped; }
+
+    public double getRmse() {
+        return count == 0 ? Double.NaN : Math.sqrt(sumSq / count);
+    }
+
+    public double getMae() {
+        return count == 0 ? Double.NaN : sumAbs / count;
+    }
+
+    /**
+     * Mean absolute percentage error over the non-zero actuals, as a percentage.
+     */
+    public double getMape() {
+        return countNonZeroActual == 0 ? Double.NaN : (sumAbsPct / countNonZeroActual) * 100.0;
+    }
+
+    /**
+     * Estimated median absolute error.
+     */
+    public double getMedianAbsError() {
+        return absErrors.median();
+    }
+
+    /**
+     * 1 - Var(residuals) / Var(actuals), or 1.0 when the actuals are constant.
+     */
+    public double getExplainedVariance() {
+        if (count == 0) return Double.NaN;
+        return m2Actual == 0 ? 1.0 : 1.0 - (m2Residual / m2Actual);
+    }
+
+    /**
+     * Current values as a PredictionMetrics (with the estimated median).
+     *
+     * @throws IllegalStateException if no pairs have been added
+     */
+    public PredictionMetrics toMetrics() {
+        if (count == 0) throw new IllegalStateException("No actual/prediction pairs accumulated.");
+        return new PredictionMetrics(getRmse(), getMae(), getMape(), getMedianAbsError(), getExplainedVariance());
+    }
+}
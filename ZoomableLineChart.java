@@ -0,0 +1,126 @@
+package rainfallPrediction;
+
+import javafx.geometry.Point2D;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.ScrollEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LineChart over index-based series that only ever holds a few thousand data nodes, however long
+ * the series are. The full-resolution values stay in plain arrays; whenever the visible x range
+ * changes, each series is re-sampled from them with SeriesDownsampler, so zooming in shows the
+ * real points again. Scroll to zoom around the mouse, double-click to reset.
+ */
+public class ZoomableLineChart extends LineChart<Number, Number> {
+
+    public static final int DEFAULT_MAX_POINTS = 2000;
+
+    private static final double ZOOM_STEP = 1.25;
+    private static final double MIN_SPAN = 10;
+
+    private final NumberAxis xAxis;
+    private final int firstX;
+    private final int maxPoints;
+    private final List<double[]> values = new ArrayList<>();
+    private final List<Integer> counts = new ArrayList<>();
+    private int length;
+    private double lower;
+    private double upper;
+
+    /**
+     * @param firstX x value of index 0 (e.g. 1 for 1-based sample numbers)
+     */
+    public ZoomableLineChart(String xLabel, String yLabel, int firstX) {
+        this(xLabel, yLabel, firstX, DEFAULT_MAX_POINTS);
+    }
+
+    public ZoomableLineChart(String xLabel, String yLabel, int firstX, int maxPoints) {
+        super(new NumberAxis(), new NumberAxis());
+        this.xAxis = (NumberAxis) getXAxis();
+        this.firstX = firstX;
+        this.maxPoints = maxPoints;
+        xAxis.setLabel(xLabel);
+        xAxis.setAutoRanging(false);
+        xAxis.setForceZeroInRange(false);
+        getYAxis().setLabel(yLabel);
+        // Re-sampling replaces the data on every zoom step; animating that only costs frames
+        setAnimated(false);
+        setOnScroll(this::zoom);
+        setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) resetZoom();
+        });
+    }
+
+    /**
+     * Adds a series plotting values[0, count). The array is kept, not copied.
+     */
+    public void addSeries(String name, double[] seriesValues, int count) {
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        values.add(seriesValues);
+        counts.add(count);
+        getData().add(series);
+        length = Math.max(length, count);
+        // Symbols are one node per point; only worth drawing once every point is shown anyway
+        setCreateSymbols(length <= maxPoints);
+        resetZoom();
+    }
+
+    public void resetZoom() {
+        setRange(0, Math.max(length - 1, 1));
+    }
+
+    private void zoom(ScrollEvent e) {
+        if (length < 2 || e.getDeltaY() == 0) return;
+        Point2D local = xAxis.sceneToLocal(e.getSceneX(), e.getSceneY());
+        double anchor = xAxis.getValueForDisplay(local.getX()).doubleValue() - firstX;
+        anchor = Math.max(lower, Math.min(upper, anchor));
+        double factor = e.getDeltaY() > 0 ? 1 / ZOOM_STEP : ZOOM_STEP;
+        double newLower = anchor - (anchor - lower) * factor;
+        double newUpper = anchor + (upper - anchor) * factor;
+        if (newUpper - newLower < MIN_SPAN) return;
+        setRange(Math.max(0, newLower), Math.min(length - 1, newUpper));
+        e.consume();
+    }
+
+    private void setRange(double newLower, double newUpper) {
+        lower = newLower;
+        upper = newUpper;
+        xAxis.setLowerBound(firstX + lower);
+        xAxis.setUpperBound(firstX + upper);
+        xAxis.setTickUnit(niceTickUnit((upper - lower) / 10));
+        resample();
+    }
+
+    private void resample() {
+        for (int s = 0; s < values.size(); s++) {
+            double[] series = values.get(s);
+            int count = counts.get(s);
+            int from = Math.max(0, (int) Math.floor(lower));
+            int to = Math.min(count, (int) Math.ceil(upper) + 1);
+            List<XYChart.Data<Number, Number>> points = new ArrayList<>();
+            if (from < to) {
+                for (int i : SeriesDownsampler.lttb(series, from, to, maxPoints)) {
+                    points.add(new XYChart.Data<>(firstX + i, series[i]));
+                }
+            }
+            getData().get(s).getData().setAll(points);
+        }
+    }
+
+    // 1, 2 or 5 times a power of ten, at least raw
+    private static double niceTickUnit(double raw) {
+        if (raw <= 1) return 1;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double fraction = raw / magnitude;
+        if (fraction <= 1) return magnitude;
+        if (fraction <= 2) return 2 * magnitude;
+        if (fraction <= 5) return 5 * magnitude;
+        return 10 * magnitude;
+    }
+}